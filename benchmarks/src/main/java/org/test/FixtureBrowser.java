@@ -0,0 +1,47 @@
+package org.test;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Headless Chrome, started with the suite's own flags, showing a local fixture page.
+ */
+final class FixtureBrowser {
+
+    final WebDriver driver;
+    private final Path fixture;
+
+    private FixtureBrowser(WebDriver driver, Path fixture) {
+        this.driver = driver;
+        this.fixture = fixture;
+    }
+
+    static FixtureBrowser open(String resource, String query) throws IOException {
+        Path file = Files.createTempFile("fixture-", ".html");
+        try (InputStream in = FixtureBrowser.class.getResourceAsStream("/fixtures/" + resource)) {
+            if (in == null) throw new IOException("Missing fixture " + resource);
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        ChromeOptions options = SessionPool.chromeOptions();
+        WebDriver driver = new ChromeDriver(options);
+        driver.get(file.toUri() + (query == null ? "" : "?" + query));
+        return new FixtureBrowser(driver, file);
+    }
+
+    Object script(String js, Object... args) {
+        return ((JavascriptExecutor) driver).executeScript(js, args);
+    }
+
+    void close() throws IOException {
+        driver.quit();
+        Files.deleteIfExists(fixture);
+    }
+}
@@ -0,0 +1,99 @@
+package org.test;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Element lookup strategies from Test4Steps: the per-locator findElements/isDisplayed
+ * chain versus {@link LocatorResolver}, and the XPath ancestor walk in pickTimeByText
+ * versus a single closest() script.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LocatorBenchmark {
+
+    private static final String DESIRED_TIME = "01:00 PM";
+
+    private FixtureBrowser browser;
+    private LocatorResolver resolver;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        browser = FixtureBrowser.open("quote-widgets.html", null);
+        browser.script("document.querySelector('.dropdown-menu').classList.add('show');");
+        resolver = new LocatorResolver(browser.driver);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        browser.close();
+    }
+
+    /** What findNextLikeButtonOrNull did before the resolver: findElements + isDisplayed per candidate. */
+    @Benchmark
+    public WebElement nextButtonFindElementsChain() {
+        WebDriver driver = browser.driver;
+        By[] locs = {
+                By.xpath("//button[.//span[normalize-space()='Next']]"),
+                By.xpath("//button[normalize-space()='Next']"),
+                By.cssSelector("button.btn-primary-theme-quote[type='submit']"),
+                By.cssSelector("button[type='submit']:not([disabled])")
+        };
+        for (By by : locs) {
+            for (WebElement el : driver.findElements(by)) if (el.isDisplayed()) return el;
+        }
+        return null;
+    }
+
+    @Benchmark
+    public LocatorResolver.Match nextButtonResolver() {
+        return resolver.firstVisible(Test4Steps.NEXT_BUTTON);
+    }
+
+    @Benchmark
+    public LocatorResolver.Match submitButtonResolver() {
+        return resolver.firstClickable(Test4Steps.SUBMIT_BUTTON);
+    }
+
+    /** pickTimeByText's walk: one ancestor XPath lookup and getText per "Select" row until the time matches. */
+    @Benchmark
+    public WebElement timeRowXPathAncestor() {
+        List<WebElement> selects = browser.driver.findElements(By.xpath("//button[normalize-space()='Select']"));
+        for (WebElement btn : selects) {
+            WebElement row = btn.findElement(By.xpath("./ancestor::*[self::tr or self::li or self::div][1]"));
+            if (row.getText().contains(DESIRED_TIME)) return btn;
+        }
+        return null;
+    }
+
+    /** The same match done inside the page: CSS for the buttons, closest() for the row, one round trip. */
+    @Benchmark
+    public Object timeRowCssClosestScript() {
+        return browser.script(
+                "return Array.from(document.querySelectorAll('.dropdown-menu.show button'))" +
+                ".filter(b=>b.textContent.trim()==='Select')" +
+                ".find(b=>(b.closest('tr,li,div')||b).textContent.includes(arguments[0])) || null;",
+                DESIRED_TIME);
+    }
+}
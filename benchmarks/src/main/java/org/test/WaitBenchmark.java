@@ -0,0 +1,90 @@
+package org.test;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from typing into the category input until its suggestions can be clicked, for
+ * each way Test4Steps has waited: a findElements loop with 150 ms naps, WebDriverWait's
+ * default polling, and the MutationObserver-based {@link SuggestionWatcher}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WaitBenchmark {
+
+    private static final By OPTIONS = By.cssSelector("#autoComplete_list_1 [role='option']");
+
+    /** Milliseconds the fixture takes to render suggestions after input. */
+    @Param({ "50", "400" })
+    public int suggestionDelayMs;
+
+    private FixtureBrowser browser;
+    private SuggestionWatcher watcher;
+    private WebElement input;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        browser = FixtureBrowser.open("quote-widgets.html", "delay=" + suggestionDelayMs);
+        watcher = new SuggestionWatcher(browser.driver);
+        input = browser.driver.findElement(By.id("fetch_service"));
+    }
+
+    @Setup(Level.Invocation)
+    public void clearSuggestions() {
+        browser.script("arguments[0].value='';document.getElementById('autoComplete_list_1').innerHTML='';", input);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        browser.close();
+    }
+
+    @Benchmark
+    public List<WebElement> pollingWithNaps() throws InterruptedException {
+        input.sendKeys("l");
+        long end = System.currentTimeMillis() + 20000;
+        List<WebElement> options = browser.driver.findElements(OPTIONS);
+        while (options.isEmpty() && System.currentTimeMillis() < end) {
+            Thread.sleep(150);
+            options = browser.driver.findElements(OPTIONS);
+        }
+        return options;
+    }
+
+    @Benchmark
+    public List<WebElement> webDriverWaitDefaultPolling() {
+        input.sendKeys("l");
+        return new WebDriverWait(browser.driver, Duration.ofSeconds(15))
+                .until(ExpectedConditions.visibilityOfAllElementsLocatedBy(OPTIONS));
+    }
+
+    @Benchmark
+    public List<WebElement> mutationObserver() {
+        input.sendKeys("l");
+        return watcher.awaitOptions("autoComplete_list_1", Duration.ofSeconds(15));
+    }
+}
@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Runs the suite as N forked shards on this machine, then merges their output into test-output.
+#
+#   scripts/run-shards.sh [shards] [extra mvn args...]   e.g. scripts/run-shards.sh 4 -Dquote.target=standin
+#   scripts/run-shards.sh --merge                        merge test-output/shard-* collected from other machines
+#
+# Across machines, run "mvn test -Dshard.index=<i> -Dshard.count=<n>" on each, copy every
+# test-output/shard-<i> into one test-output and run --merge there.
+set -uo pipefail
+cd "$(dirname "$0")/.."
+
+merge() {
+  mvn -B -q dependency:build-classpath -Dmdep.outputFile=target/shard-classpath.txt || return 1
+  java -cp "target/test-classes:$(cat target/shard-classpath.txt)" org.test.ShardMerge test-output
+}
+
+if [ "${1:-}" = "--merge" ]; then
+  mvn -B -q test-compile || exit 1
+  merge
+  exit $?
+fi
+
+SHARDS=${1:-$(nproc)}
+shift || true
+
+rm -rf test-output/shard-*
+mvn -B -q test-compile "$@" || exit 1
+mkdir -p test-output
+
+pids=()
+for ((i = 0; i < SHARDS; i++)); do
+  mkdir -p "test-output/shard-$i"
+  mvn -B surefire:test -Dshard.index=$i -Dshard.count=$SHARDS \
+      -Dshard.reports=target/surefire-reports-shard-$i "$@" > "test-output/shard-$i/mvn.log" 2>&1 &
+  pids+=($!)
+done
+
+status=0
+for i in "${!pids[@]}"; do
+  if wait "${pids[$i]}"; then
+    echo "shard $i passed"
+  else
+    echo "shard $i failed, see test-output/shard-$i/mvn.log"
+    status=1
+  fi
+done
+
+merge || status=1
+exit $status
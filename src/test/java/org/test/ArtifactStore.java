@@ -0,0 +1,172 @@
+package org.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed storage for screenshots and page dumps under
+ * test-output/artifacts (the shard's own output directory in a sharded run). Objects are named by the SHA-256 of their content, so
+ * identical captures are stored once; HTML is gzip-compressed. index.tsv maps
+ * each logical name (e.g. "rentXQuoteWorkflow_20251120184940.png") to its object.
+ *
+ * Retention: -Dartifacts.maxMb (default 200) and -Dartifacts.maxAgeDays (default 14).
+ */
+public final class ArtifactStore {
+
+    static final String OUTPUT_DIR = Shard.outputDir().toString();
+    static final Path ROOT = Paths.get(OUTPUT_DIR, "artifacts");
+    private static final Path OBJECTS = ROOT.resolve("objects");
+    private static final Path INDEX = ROOT.resolve("index.tsv");
+
+    private ArtifactStore() {}
+
+    /** Stores the bytes and returns the object's path relative to test-output. */
+    public static String put(String logicalName, byte[] content, String extension) throws IOException {
+        String hash = sha256(content);
+        Path object = OBJECTS.resolve(hash.substring(0, 2)).resolve(hash + "." + extension);
+        if (Files.exists(object)) {
+            // still referenced: refresh its age so retention keeps it
+            Files.setLastModifiedTime(object, FileTime.from(Instant.now()));
+        } else {
+            Files.createDirectories(object.getParent());
+            Path tmp = Files.createTempFile(object.getParent(), hash, ".tmp");
+            Files.write(tmp, content);
+            Files.move(tmp, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        appendIndex(logicalName, object);
+        return relative(object);
+    }
+
+    /**
+     * Moves a finished file into the store without reading it into memory; the file must
+     * have been written under {@link #scratch}. Returns the object's path like {@link #put}.
+     */
+    public static String putFile(String logicalName, Path file, String extension) throws IOException {
+        String hash = sha256(file);
+        Path object = OBJECTS.resolve(hash.substring(0, 2)).resolve(hash + "." + extension);
+        if (Files.exists(object)) {
+            Files.delete(file);
+            Files.setLastModifiedTime(object, FileTime.from(Instant.now()));
+        } else {
+            Files.createDirectories(object.getParent());
+            Files.move(file, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        appendIndex(logicalName, object);
+        return relative(object);
+    }
+
+    /** A temp file on the store's file system, so {@link #putFile} can move it atomically. */
+    public static Path scratch(String suffix) throws IOException {
+        Files.createDirectories(ROOT);
+        return Files.createTempFile(ROOT, "partial-", suffix);
+    }
+
+    /** Stores an HTML dump gzip-compressed; identical pages share one object. */
+    public static String putHtml(String logicalName, String html) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer) {
+            { def.setLevel(java.util.zip.Deflater.BEST_COMPRESSION); }
+        }) {
+            gzip.write(html.getBytes(StandardCharsets.UTF_8));
+        }
+        return put(logicalName, buffer.toByteArray(), "html.gz");
+    }
+
+    /** Deletes objects older than the age limit, then the oldest ones until the store fits the size limit. */
+    public static void enforceRetention() {
+        long maxBytes = Long.getLong("artifacts.maxMb", 200L) * 1024 * 1024;
+        Instant cutoff = Instant.now().minus(Duration.ofDays(Long.getLong("artifacts.maxAgeDays", 14L)));
+        if (!Files.isDirectory(OBJECTS)) return;
+        try (Stream<Path> walk = Files.walk(OBJECTS)) {
+            List<Path> objects = walk.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing(ArtifactStore::modified))
+                    .collect(Collectors.toList());
+            long total = 0;
+            for (Path p : objects) total += Files.size(p);
+            int deleted = 0;
+            for (Path p : objects) {
+                if (total <= maxBytes && modified(p).toInstant().isAfter(cutoff)) break;
+                total -= Files.size(p);
+                Files.deleteIfExists(p);
+                deleted++;
+            }
+            if (deleted > 0) {
+                pruneIndex();
+                System.out.println("Artifact retention removed " + deleted + " object(s)");
+            }
+        } catch (IOException e) {
+            System.err.println("Artifact retention failed: " + e.getMessage());
+        }
+    }
+
+    private static synchronized void appendIndex(String logicalName, Path object) throws IOException {
+        String line = Instant.now() + "\t" + logicalName + "\t" + relative(object) + System.lineSeparator();
+        Files.write(INDEX, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static synchronized void pruneIndex() throws IOException {
+        if (!Files.exists(INDEX)) return;
+        List<String> kept = new ArrayList<>();
+        for (String line : Files.readAllLines(INDEX, StandardCharsets.UTF_8)) {
+            String[] cols = line.split("\t");
+            if (cols.length == 3 && Files.exists(Paths.get(OUTPUT_DIR, cols[2]))) kept.add(line);
+        }
+        Files.write(INDEX, kept, StandardCharsets.UTF_8);
+    }
+
+    private static String relative(Path object) {
+        return Paths.get(OUTPUT_DIR).relativize(object).toString().replace('\\', '/');
+    }
+
+    private static FileTime modified(Path p) {
+        try { return Files.getLastModifiedTime(p); } catch (IOException e) { return FileTime.fromMillis(0); }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[64 * 1024];
+            for (int n; (n = in.read(buffer)) > 0; ) digest.update(buffer, 0, n);
+            return hex(digest);
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        MessageDigest digest = sha256();
+        digest.update(content);
+        return hex(digest);
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Finishes the digest and returns it as lowercase hex. */
+    static String hex(MessageDigest digest) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+}
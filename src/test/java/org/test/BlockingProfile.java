@@ -0,0 +1,167 @@
+package org.test;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Third-party requests the browser should never make during a run: analytics tags,
+ * chat widgets, map tiles, tracking pixels and, optionally, whole resource types.
+ * The URL block list is handed to Chrome once per session, so those requests fail
+ * inside the browser without a round trip to the test JVM. Resource types are blocked
+ * by the type Chrome assigns the request, not its URL, through Fetch interception
+ * limited to those types; extensionless CDN images, map tiles and font loaders are
+ * caught too. While a {@link NetworkArchive} interceptor owns the Fetch domain, types
+ * fall back to file-extension URL patterns, and the summary says so.
+ *
+ * -Dblock.profile=off|ci (default off). "ci" blocks the known third parties below
+ * plus images, fonts and media. -Dblock.patterns adds comma separated URL patterns
+ * ('*' wildcards) and -Dblock.types overrides the resource types (images, fonts, media).
+ * The autocomplete APIs and first-party scripts are never on the default list.
+ */
+public final class BlockingProfile {
+
+    private static final List<String> THIRD_PARTIES = Arrays.asList(
+            "*google-analytics.com*", "*googletagmanager.com*", "*doubleclick.net*",
+            "*googleadservices.com*", "*googlesyndication.com*", "*facebook.net*", "*connect.facebook.com*",
+            "*hotjar.com*", "*clarity.ms*", "*bing.com/bat*", "*tiktok.com*", "*linkedin.com/px*",
+            "*tawk.to*", "*intercom.io*", "*intercomcdn.com*", "*zopim.com*", "*zendesk.com/embeddable*",
+            "*livechatinc.com*", "*crisp.chat*",
+            "*maps.googleapis.com/maps/vt*", "*maps.googleapis.com/maps/api/staticmap*", "*khms*.google.com*");
+
+    private static final Map<String, List<String>> TYPES = new HashMap<>();
+    private static final Map<String, String> RESOURCE_TYPES = new HashMap<>();
+    static {
+        RESOURCE_TYPES.put("images", "Image");
+        RESOURCE_TYPES.put("fonts", "Font");
+        RESOURCE_TYPES.put("media", "Media");
+        TYPES.put("images", Arrays.asList("png", "jpg", "jpeg", "gif", "webp", "avif", "svg", "ico"));
+        TYPES.put("fonts", Arrays.asList("woff", "woff2", "ttf", "otf", "eot"));
+        TYPES.put("media", Arrays.asList("mp4", "webm", "mp3", "ogg", "wav", "m4a"));
+    }
+
+    private BlockingProfile() {}
+
+    public static String name() {
+        return System.getProperty("block.profile", "off").trim().toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> types() {
+        String fallback = "ci".equals(name()) ? "images,fonts,media" : "";
+        String value = System.getProperty("block.types", fallback).trim();
+        return value.isEmpty() ? Collections.emptyList() : Arrays.asList(value.toLowerCase(Locale.ROOT).split("\\s*,\\s*"));
+    }
+
+    /** Whether this run blocks anything at all. */
+    static boolean active() {
+        return !patterns().isEmpty() || !types().isEmpty();
+    }
+
+    // Fetch interception and the archive's interceptor would both answer paused requests
+    private static boolean typesByExtension() {
+        return NetworkArchive.mode() != NetworkArchive.Mode.OFF;
+    }
+
+    /** URL patterns in Chrome's Network.setBlockedURLs syntax; empty when no URL is blocked. */
+    static List<String> patterns() {
+        Set<String> patterns = new LinkedHashSet<>();
+        if ("ci".equals(name())) patterns.addAll(THIRD_PARTIES);
+        String extra = System.getProperty("block.patterns", "").trim();
+        if (!extra.isEmpty()) patterns.addAll(Arrays.asList(extra.split("\\s*,\\s*")));
+        if (typesByExtension()) patterns.addAll(extensionPatterns());
+        return new ArrayList<>(patterns);
+    }
+
+    private static List<String> extensionPatterns() {
+        List<String> patterns = new ArrayList<>();
+        for (String type : types()) {
+            List<String> extensions = TYPES.get(type);
+            if (extensions == null) {
+                System.err.println("Unknown block.types entry ignored: " + type);
+                continue;
+            }
+            for (String ext : extensions) {
+                patterns.add("*." + ext);
+                patterns.add("*." + ext + "?*");
+            }
+        }
+        return patterns;
+    }
+
+    // Fetch.enable patterns: every request of a blocked type, paused before it is sent
+    private static List<Map<String, Object>> typePatterns() {
+        List<Map<String, Object>> patterns = new ArrayList<>();
+        for (String type : types()) {
+            String resourceType = RESOURCE_TYPES.get(type);
+            if (resourceType == null) {
+                System.err.println("Unknown block.types entry ignored: " + type);
+                continue;
+            }
+            Map<String, Object> pattern = new HashMap<>();
+            pattern.put("resourceType", resourceType);
+            pattern.put("requestStage", "Request");
+            patterns.add(pattern);
+        }
+        return patterns;
+    }
+
+    /** e.g. "ci: 22 URL patterns, resource types images,fonts,media". */
+    public static String summary() {
+        if (!active()) return "off";
+        List<String> patterns = patterns();
+        String types = types().isEmpty() ? "" : (typesByExtension() ? ", file extensions of " : ", resource types ") + String.join(",", types());
+        return name() + ": " + patterns.size() + " URL patterns" + types;
+    }
+
+    static void apply(WebDriver driver) {
+        if (!(driver instanceof ChromiumDriver)) return;
+        List<String> patterns = patterns();
+        if (!patterns.isEmpty()) {
+            ChromiumDriver chromium = (ChromiumDriver) driver;
+            try {
+                chromium.executeCdpCommand("Network.enable", new HashMap<>());
+                Map<String, Object> params = new HashMap<>();
+                params.put("urls", patterns);
+                chromium.executeCdpCommand("Network.setBlockedURLs", params);
+            } catch (RuntimeException e) {
+                System.err.println("Could not apply blocking profile, continuing without it: " + e.getMessage());
+            }
+        }
+        if (!typesByExtension()) blockTypes(driver);
+    }
+
+    // only requests of the blocked types are paused, so every one of them is failed
+    @SuppressWarnings("unchecked")
+    private static void blockTypes(WebDriver driver) {
+        List<Map<String, Object>> patterns = typePatterns();
+        if (patterns.isEmpty() || !(driver instanceof HasDevTools)) return;
+        try {
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            devTools.addListener(new Event<Map<String, Object>>("Fetch.requestPaused", input -> (Map<String, Object>) input.read(Map.class)), e -> {
+                Map<String, Object> params = new HashMap<>();
+                params.put("requestId", e.get("requestId"));
+                params.put("errorReason", "BlockedByClient");
+                try { devTools.send(new Command<>("Fetch.failRequest", params)); } catch (RuntimeException ignored) {}
+            });
+            Map<String, Object> params = new HashMap<>();
+            params.put("patterns", patterns);
+            devTools.send(new Command<>("Fetch.enable", params));
+        } catch (RuntimeException e) {
+            System.err.println("Could not block resource types, continuing without it: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.test;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Chrome user-data directories for pooled sessions.
+ *
+ * With -Dprofile.template=true every session starts from a copy of a template profile
+ * (-Dprofile.templateDir, default chrome-template/) that has already visited the quote
+ * page, so the HTTP disk cache, V8 code cache and any service worker are warm. The
+ * template is warmed on first use and again once it is older than
+ * -Dprofile.maxAgeHours (default 24) or was warmed against another quote URL; cookies
+ * and site storage are cleared before it is saved, only caches are kept. If warming
+ * fails, the rest of the run uses fresh profiles instead of retrying it per session.
+ *
+ * Copies go to /dev/shm when it is writable (tmpfs, so cloning and cache reads stay in
+ * memory), else java.io.tmpdir; -Dprofile.sessionsDir overrides that. Without a
+ * template, sharded runs still get an empty directory per session so shards never
+ * share a profile. Each directory is deleted when its session retires.
+ */
+public final class ChromeProfiles {
+
+    private static final boolean TEMPLATE = Boolean.getBoolean("profile.template");
+    private static final Path TEMPLATE_DIR = Paths.get(System.getProperty("profile.templateDir", "chrome-template"));
+    private static final long MAX_AGE_MILLIS = Duration.ofHours(Long.getLong("profile.maxAgeHours", 24L)).toMillis();
+    private static final long SETTLE_MILLIS = Long.getLong("profile.warmSettleMs", 3000L);
+    private static final String MARKER = ".warmed.json";
+
+    // lock files, sockets and crash dumps belong to the Chrome that wrote the template
+    private static final List<String> NOT_COPIED = Arrays.asList(
+            "SingletonLock", "SingletonSocket", "SingletonCookie", "lockfile", "Crashpad", "Crash Reports", MARKER);
+
+    private static final Json JSON = new Json();
+    private static volatile boolean warmChecked;
+    private static volatile boolean warmFailed;
+
+    private ChromeProfiles() {}
+
+    public static boolean templateEnabled() {
+        return TEMPLATE;
+    }
+
+    /** A fresh profile directory for a new session, or null to let Chrome use a throwaway one. */
+    static Path forSession() {
+        boolean template = TEMPLATE && ensureWarm();
+        if (!template && !Shard.isSharded()) return null;
+        Path profile = null;
+        try {
+            Path parent = sessionsRoot().resolve("shard-" + Shard.index());
+            Files.createDirectories(parent);
+            profile = Files.createTempDirectory(parent, "session-");
+            if (template) copy(TEMPLATE_DIR, profile);
+            return profile;
+        } catch (IOException e) {
+            delete(profile);
+            throw new UncheckedIOException("Could not create a Chrome profile directory", e);
+        } catch (RuntimeException e) {
+            delete(profile);
+            throw e;
+        }
+    }
+
+    static void delete(Path profile) {
+        if (profile == null || !Files.exists(profile)) return;
+        try (Stream<Path> walk = Files.walk(profile)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("Failed to delete Chrome profile " + profile + ": " + e.getMessage());
+        }
+    }
+
+    static Path sessionsRoot() {
+        String configured = System.getProperty("profile.sessionsDir");
+        if (configured != null) return Paths.get(configured);
+        Path shm = Paths.get("/dev/shm");
+        Path base = Files.isDirectory(shm) && Files.isWritable(shm) ? shm : Paths.get(System.getProperty("java.io.tmpdir"));
+        return base.resolve("chrome-profiles");
+    }
+
+    // once per JVM, true when the template can be used; the file lock keeps parallel shards from warming the same template twice
+    private static boolean ensureWarm() {
+        if (warmChecked) return !warmFailed;
+        synchronized (ChromeProfiles.class) {
+            if (warmChecked) return !warmFailed;
+            try {
+                Path parent = TEMPLATE_DIR.toAbsolutePath().getParent();
+                Files.createDirectories(parent);
+                try (FileChannel channel = FileChannel.open(parent.resolve(TEMPLATE_DIR.getFileName() + ".lock"),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    channel.lock();
+                    if (stale()) warm();
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Chrome profile template unavailable, using fresh profiles: " + e.getMessage());
+                warmFailed = true;
+            }
+            warmChecked = true;
+            return !warmFailed;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean stale() {
+        Path marker = TEMPLATE_DIR.resolve(MARKER);
+        if (!Files.exists(marker)) return true;
+        try {
+            Map<String, Object> warmed = JSON.toType(new String(Files.readAllBytes(marker), StandardCharsets.UTF_8), Map.class);
+            long age = System.currentTimeMillis() - ((Number) warmed.get("at")).longValue();
+            return age > MAX_AGE_MILLIS || !QuoteTarget.quoteUrl().equals(warmed.get("url"));
+        } catch (IOException | RuntimeException e) {
+            return true;
+        }
+    }
+
+    private static void warm() throws IOException {
+        String url = QuoteTarget.quoteUrl();
+        System.out.println("Warming Chrome profile template " + TEMPLATE_DIR + " from " + url);
+        delete(TEMPLATE_DIR);
+        Files.createDirectories(TEMPLATE_DIR);
+        ChromeOptions options = SessionPool.chromeOptions();
+        options.addArguments("--user-data-dir=" + TEMPLATE_DIR.toAbsolutePath());
+        WebDriver driver = new ChromeDriver(options);
+        try {
+            // the second visit is what makes V8 keep compiled code for the page's scripts
+            for (int visit = 0; visit < 2; visit++) {
+                driver.get(url);
+                new WebDriverWait(driver, Duration.ofSeconds(30))
+                        .until(d -> "complete".equals(((JavascriptExecutor) d).executeScript("return document.readyState")));
+                Thread.sleep(SETTLE_MILLIS);
+            }
+            clearSiteState((ChromeDriver) driver);
+        } catch (InterruptedException e) {
+            // a half-warmed template gets no marker, so the next run warms it again
+            Thread.currentThread().interrupt();
+            throw new IOException("Warming the Chrome profile template was interrupted", e);
+        } finally {
+            // a clean quit is what flushes the cache index to disk
+            driver.quit();
+        }
+        Map<String, Object> marker = new LinkedHashMap<>();
+        marker.put("url", url);
+        marker.put("at", System.currentTimeMillis());
+        Files.write(TEMPLATE_DIR.resolve(MARKER), JSON.toJson(marker).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // sessions must not inherit a visitor: keep caches and service workers, drop cookies and storage
+    private static void clearSiteState(ChromeDriver driver) {
+        Object origin = driver.executeScript("return location.origin;");
+        if (origin instanceof String && ((String) origin).startsWith("http")) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("origin", origin);
+            params.put("storageTypes", "cookies,local_storage,indexeddb,websql,file_systems");
+            driver.executeCdpCommand("Storage.clearDataForOrigin", params);
+        }
+        driver.executeCdpCommand("Network.clearBrowserCookies", new HashMap<>());
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        Files.walkFileTree(from, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(from) && NOT_COPIED.contains(dir.getFileName().toString())) return FileVisitResult.SKIP_SUBTREE;
+                Files.createDirectories(to.resolve(from.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (attrs.isRegularFile() && !NOT_COPIED.contains(file.getFileName().toString())) {
+                    Files.copy(file, to.resolve(from.relativize(file).toString()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
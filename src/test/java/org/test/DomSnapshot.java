@@ -0,0 +1,260 @@
+package org.test;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Structural snapshot of the page at the start of each funnel stage: every element
+ * with an id, class, name or role, and how many nodes each locator the steps use
+ * matches. The snapshots of a passing run become the baselines (gzipped JSON under
+ * -Ddom.baselines, default dom-baselines/, per quote target). When a run fails,
+ * the snapshots it took are stored gzipped in the artifact store together with a
+ * diff of the failing stage against its baseline: ids and field names that
+ * disappeared or appeared, class changes on surviving ids, and locators that no
+ * longer match. -Ddom.fullSource=true also stores the failing page's full source.
+ */
+public final class DomSnapshot {
+
+    private static final int MAX_ELEMENTS = 5000;
+    private static final int MAX_LISTED = 25;
+    private static final Json JSON = new Json();
+
+    private static final String SNAPSHOT_SCRIPT =
+        "const specs = arguments[0], max = arguments[1];" +
+        "const count = (kind, expr) => { try {" +
+        "  if (kind === 'css') return document.querySelectorAll(expr).length;" +
+        "  return document.evaluate(expr, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null).snapshotLength;" +
+        "} catch (e) { return -1; } };" +
+        "const elements = [];" +
+        "for (const el of document.querySelectorAll('body *')) {" +
+        "  if (elements.length >= max) break;" +
+        "  if (['SCRIPT', 'STYLE', 'NOSCRIPT'].includes(el.tagName) || el.closest('svg')) continue;" +
+        "  const cls = typeof el.className === 'string' ? el.className.trim().split(/\\s+/).filter(Boolean).sort().join(' ') : '';" +
+        "  const name = el.getAttribute('name') || '', role = el.getAttribute('role') || '';" +
+        "  if (!el.id && !cls && !name && !role) continue;" +
+        "  elements.push([el.tagName.toLowerCase(), el.id, cls, name, role]);" +
+        "}" +
+        "return { url: location.href, elements: elements, locators: specs.map(s => count(s[0], s[1])) };";
+
+    private static final ThreadLocal<Map<String, Map<String, Object>>> TAKEN = ThreadLocal.withInitial(LinkedHashMap::new);
+    private static final ThreadLocal<String> STAGE = new ThreadLocal<>();
+
+    private DomSnapshot() {}
+
+    static Path baselineDir() {
+        return Paths.get(System.getProperty("dom.baselines", "dom-baselines"), QuoteTarget.isStandIn() ? "standin" : "rentx");
+    }
+
+    /** Starts a new run on this thread, forgetting the previous run's snapshots. */
+    static void begin() {
+        TAKEN.get().clear();
+        STAGE.remove();
+    }
+
+    /** Snapshots the page as the named stage is about to act on it. */
+    static void beforeStage(WebDriver driver, String stage) {
+        STAGE.set(stage);
+        try {
+            TAKEN.get().put(stage, take(driver));
+        } catch (RuntimeException e) {
+            System.err.println("DOM snapshot before " + stage + " failed: " + e.getMessage());
+        }
+    }
+
+    /** The run passed: its snapshots become the baselines for their stages. */
+    static void promote() {
+        for (Map.Entry<String, Map<String, Object>> e : TAKEN.get().entrySet()) {
+            try {
+                Path file = baselineDir().resolve(e.getKey() + ".json.gz").toAbsolutePath();
+                Files.createDirectories(file.getParent());
+                Path tmp = Files.createTempFile(file.getParent(), e.getKey(), ".tmp");
+                Files.write(tmp, gzip(JSON.toJson(e.getValue())));
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                System.err.println("Failed to save DOM baseline for " + e.getKey() + ": " + ex.getMessage());
+            }
+        }
+        begin();
+    }
+
+    /**
+     * The run failed: stores this run's snapshots and the diff of the failing stage against
+     * its baseline, prints the diff and returns its artifact path (relative to test-output).
+     */
+    public static String reportFailure(WebDriver driver, String name) {
+        Map<String, Map<String, Object>> taken = new LinkedHashMap<>(TAKEN.get());
+        String stage = STAGE.get();
+        try {
+            taken.put("failure", take(driver));
+        } catch (RuntimeException e) {
+            System.err.println("DOM snapshot at failure failed: " + e.getMessage());
+        }
+        try {
+            ArtifactStore.put(name + "-dom.json.gz", gzip(JSON.toJson(taken)), "json.gz");
+            StringBuilder report = new StringBuilder("DOM diff for stage '" + stage + "'\n");
+            Map<String, Object> baseline = stage == null ? null : loadBaseline(stage);
+            if (baseline == null) report.append("No baseline from a passing run yet.\n");
+            else report.append(diff(baseline, taken.get(stage)));
+            if (taken.containsKey("failure")) report.append(locatorReport("at failure", taken.get("failure")));
+            System.out.println(report);
+            return ArtifactStore.put(name + "-dom-diff.txt", report.toString().getBytes(StandardCharsets.UTF_8), "txt");
+        } catch (IOException e) {
+            System.err.println("Failed to store DOM snapshots: " + e.getMessage());
+            return null;
+        } finally {
+            begin();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> take(WebDriver driver) {
+        return (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(SNAPSHOT_SCRIPT, specs(), MAX_ELEMENTS);
+    }
+
+    private static List<Locator> locators() {
+        List<Locator> all = new ArrayList<>();
+        for (Locator[] group : new Locator[][] { Test4Steps.FUNNEL_FIELDS, Test4Steps.NEXT_BUTTON, Test4Steps.SUBMIT_BUTTON }) {
+            for (Locator l : group) all.add(l);
+        }
+        return all;
+    }
+
+    private static List<List<String>> specs() {
+        List<List<String>> specs = new ArrayList<>();
+        for (Locator l : locators()) specs.add(l.toScriptArg());
+        return specs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> loadBaseline(String stage) {
+        Path file = baselineDir().resolve(stage + ".json.gz");
+        if (!Files.exists(file)) return null;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            return JSON.toType(new String(in.readAllBytes(), StandardCharsets.UTF_8), Map.class);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable DOM baseline " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static String diff(Map<String, Object> baseline, Map<String, Object> current) {
+        if (current == null) return "No snapshot of this stage in the failing run.\n";
+        StringBuilder out = new StringBuilder();
+        if (!String.valueOf(baseline.get("url")).equals(current.get("url"))) {
+            out.append("URL: ").append(baseline.get("url")).append(" -> ").append(current.get("url")).append('\n');
+        }
+        Map<String, List<String>> before = byId((List<List<Object>>) baseline.get("elements"));
+        Map<String, List<String>> after = byId((List<List<Object>>) current.get("elements"));
+        list(out, "Missing ids", minus(before.keySet(), after.keySet()));
+        list(out, "New ids", minus(after.keySet(), before.keySet()));
+        List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, List<String>> e : before.entrySet()) {
+            List<String> now = after.get(e.getKey());
+            if (now == null) continue;
+            if (!e.getValue().get(0).equals(now.get(0))) changed.add("#" + e.getKey() + " tag " + e.getValue().get(0) + " -> " + now.get(0));
+            if (!e.getValue().get(1).equals(now.get(1))) changed.add("#" + e.getKey() + " class '" + e.getValue().get(1) + "' -> '" + now.get(1) + "'");
+        }
+        list(out, "Changed", changed);
+        Set<String> namesBefore = column((List<List<Object>>) baseline.get("elements"), 3);
+        Set<String> namesAfter = column((List<List<Object>>) current.get("elements"), 3);
+        list(out, "Missing field names", minus(namesBefore, namesAfter));
+        list(out, "New field names", minus(namesAfter, namesBefore));
+        Set<String> classesBefore = classes((List<List<Object>>) baseline.get("elements"));
+        Set<String> classesAfter = classes((List<List<Object>>) current.get("elements"));
+        list(out, "Classes gone", minus(classesBefore, classesAfter));
+        list(out, "Classes new", minus(classesAfter, classesBefore));
+
+        List<Locator> locators = locators();
+        List<Object> countsBefore = (List<Object>) baseline.get("locators");
+        List<Object> countsAfter = (List<Object>) current.get("locators");
+        List<String> broken = new ArrayList<>();
+        for (int i = 0; i < locators.size() && i < countsBefore.size() && i < countsAfter.size(); i++) {
+            long b = ((Number) countsBefore.get(i)).longValue(), a = ((Number) countsAfter.get(i)).longValue();
+            if (b > 0 && a <= 0) broken.add(locators.get(i) + " (" + b + " -> " + a + ")");
+        }
+        list(out, "Locators that stopped matching", broken);
+        return out.length() == 0 ? "No structural differences.\n" : out.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String locatorReport(String label, Map<String, Object> snapshot) {
+        List<Locator> locators = locators();
+        List<Object> counts = (List<Object>) snapshot.get("locators");
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < locators.size() && i < counts.size(); i++) {
+            if (((Number) counts.get(i)).longValue() <= 0) missing.add(locators.get(i).toString());
+        }
+        StringBuilder out = new StringBuilder();
+        list(out, "Locators without a match " + label, missing);
+        return out.toString();
+    }
+
+    private static Map<String, List<String>> byId(List<List<Object>> elements) {
+        Map<String, List<String>> out = new HashMap<>();
+        for (List<Object> el : elements) {
+            String id = String.valueOf(el.get(1));
+            if (!id.isEmpty()) out.putIfAbsent(id, List.of(String.valueOf(el.get(0)), String.valueOf(el.get(2))));
+        }
+        return out;
+    }
+
+    private static Set<String> column(List<List<Object>> elements, int index) {
+        Set<String> out = new TreeSet<>();
+        for (List<Object> el : elements) {
+            String value = String.valueOf(el.get(index));
+            if (!value.isEmpty()) out.add(value);
+        }
+        return out;
+    }
+
+    private static Set<String> classes(List<List<Object>> elements) {
+        Set<String> out = new TreeSet<>();
+        for (List<Object> el : elements) {
+            String cls = String.valueOf(el.get(2));
+            if (!cls.isEmpty()) out.addAll(List.of(cls.split(" ")));
+        }
+        return out;
+    }
+
+    private static List<String> minus(Collection<String> a, Collection<String> b) {
+        Set<String> out = new TreeSet<>(a);
+        out.removeAll(b);
+        return new ArrayList<>(out);
+    }
+
+    private static void list(StringBuilder out, String title, List<String> items) {
+        if (items.isEmpty()) return;
+        out.append(title).append(" (").append(items.size()).append("):\n");
+        for (int i = 0; i < items.size() && i < MAX_LISTED; i++) out.append("  ").append(items.get(i)).append('\n');
+        if (items.size() > MAX_LISTED) out.append("  ...\n");
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(bytes)) {
+            gz.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,12 @@
+package org.test;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Implemented by test classes so {@link TestListener} can find the browser
+ * session that belongs to the test result it is reporting on.
+ */
+public interface DriverAware {
+
+    WebDriver getDriver();
+}
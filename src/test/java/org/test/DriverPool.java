@@ -0,0 +1,54 @@
+package org.test;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-bound browser sessions. Every test thread gets its own ChromeDriver,
+ * so data-provider invocations running in parallel never share a browser.
+ * Sessions come from, and go back to, the warm {@link SessionPool}.
+ */
+public final class DriverPool {
+
+    private static final Map<Thread, WebDriver> SESSIONS = new ConcurrentHashMap<>();
+
+    private DriverPool() {}
+
+    /** Returns the session bound to the calling thread, borrowing one from the pool if needed. */
+    public static WebDriver get() {
+        Thread owner = Thread.currentThread();
+        WebDriver driver = SESSIONS.get(owner);
+        if (driver == null) {
+            driver = SessionPool.borrow();
+            SESSIONS.put(owner, driver);
+            System.out.println("Bound browser session to " + owner.getName() + " (" + SESSIONS.size() + " active)");
+        }
+        return driver;
+    }
+
+    /** Returns the session bound to the calling thread, or null if it has none. */
+    public static WebDriver current() {
+        return SESSIONS.get(Thread.currentThread());
+    }
+
+    /** Returns the session bound to the calling thread to the pool. */
+    public static void release() {
+        WebDriver driver = SESSIONS.remove(Thread.currentThread());
+        if (driver != null) SessionPool.giveBack(driver);
+    }
+
+    /** Returns every session to the pool, whichever thread it is bound to. */
+    public static void releaseAll() {
+        List<WebDriver> drivers = new ArrayList<>(SESSIONS.values());
+        SESSIONS.clear();
+        for (WebDriver driver : drivers) {
+            try { SessionPool.giveBack(driver); } catch (Exception e) {
+                System.err.println("Failed to return browser session: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.test;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Renders an {@link EventStream} log as a single HTML page. Two passes over the file:
+ * the first counts outcomes and notes where each test's last event is, the second
+ * writes each test out as soon as that event has been read, so only tests still
+ * open at that point of the log are held in memory. Screenshots are linked by path,
+ * relative to the report.
+ *
+ * On demand, e.g. while a run is still going:
+ * {@code java -cp <test classpath> org.test.EventReport test-output/events/events-<ts>.jsonl [out.html]}
+ */
+public final class EventReport {
+
+    private static final Json JSON = new Json();
+
+    private EventReport() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: EventReport <events.jsonl> [report.html]");
+            System.exit(2);
+        }
+        Path events = Paths.get(args[0]);
+        Path html = args.length > 1 ? Paths.get(args[1]) : Shard.outputDir().resolve("EventReport.html");
+        render(events, html);
+        System.out.println("Event report written to " + html.toAbsolutePath());
+    }
+
+    public static void render(Path events, Path html) throws IOException {
+        Map<String, Long> lastLine = new HashMap<>();
+        Map<String, Integer> outcomes = new TreeMap<>();
+        String suite = "Regression Suite";
+        long lineNo = 0;
+        try (BufferedReader in = Files.newBufferedReader(events, StandardCharsets.UTF_8)) {
+            for (String line; (line = in.readLine()) != null; lineNo++) {
+                Map<String, Object> e = parse(line);
+                if (e == null) continue;
+                if (e.get("test") != null) lastLine.put(String.valueOf(e.get("test")), lineNo);
+                if ("testEnd".equals(e.get("type"))) outcomes.merge(String.valueOf(e.get("status")), 1, Integer::sum);
+                if ("suiteStart".equals(e.get("type")) && e.get("name") != null) suite = String.valueOf(e.get("name"));
+            }
+        }
+
+        if (html.getParent() != null) Files.createDirectories(html.getParent());
+        Path base = html.toAbsolutePath().getParent();
+        try (BufferedReader in = Files.newBufferedReader(events, StandardCharsets.UTF_8);
+             BufferedWriter out = Files.newBufferedWriter(html, StandardCharsets.UTF_8)) {
+            out.write("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>" + esc(suite) + "</title><style>"
+                    + "body{font-family:sans-serif;margin:24px;background:#1e1e1e;color:#ddd}"
+                    + "section{border-left:4px solid #888;margin:12px 0;padding:6px 12px;background:#2a2a2a}"
+                    + "section.pass{border-color:#3c3}section.fail{border-color:#e33}section.skip{border-color:#eb3}"
+                    + "ul{margin:4px 0}li{font-size:13px}pre{white-space:pre-wrap;color:#f99}img{max-width:480px;display:block}"
+                    + "</style></head><body>\n");
+            out.write("<h1>" + esc(suite) + "</h1><p>" + esc(outcomes.toString()) + " &middot; " + esc(events.toString()) + "</p>\n");
+
+            Map<String, StringBuilder> open = new HashMap<>();
+            Map<String, String> status = new HashMap<>();
+            // a live log keeps growing; stop where the first pass stopped
+            long lines = lineNo;
+            lineNo = 0;
+            for (String line; lineNo < lines && (line = in.readLine()) != null; lineNo++) {
+                Map<String, Object> e = parse(line);
+                if (e == null) continue;
+                String type = String.valueOf(e.get("type"));
+                if (e.get("test") == null) {
+                    if (!"suiteStart".equals(type)) out.write("<p><small>" + esc(type) + " " + esc(String.valueOf(e.get("name"))) + "</small></p>\n");
+                    continue;
+                }
+                String id = String.valueOf(e.get("test"));
+                StringBuilder block = open.computeIfAbsent(id, k -> new StringBuilder());
+                switch (type) {
+                    case "testStart":
+                        block.append("<h3>").append(esc(String.valueOf(e.get("name"))))
+                             .append(e.get("params") == null ? "" : " <small>" + esc(String.valueOf(e.get("params"))) + "</small>")
+                             .append("</h3><ul>");
+                        break;
+                    case "testEnd":
+                        status.put(id, String.valueOf(e.get("status")));
+                        block.append("<li>").append(esc(String.valueOf(e.get("status")))).append(" in ")
+                             .append(e.get("durationMs")).append(" ms</li>");
+                        if (e.get("error") != null) block.append("<li><pre>").append(esc(String.valueOf(e.get("error")))).append("</pre></li>");
+                        break;
+                    case "screenshot":
+                        String src = relative(base, String.valueOf(e.get("path")));
+                        block.append("<li><a href=\"").append(esc(src)).append("\"><img src=\"").append(esc(src)).append("\"></a></li>");
+                        break;
+                    default:
+                        block.append("<li>").append(esc(String.valueOf(e.get("message")))).append("</li>");
+                }
+                if (lastLine.getOrDefault(id, -1L) == lineNo) {
+                    out.write("<section class=\"" + status.getOrDefault(id, "open") + "\">" + block + "</ul></section>\n");
+                    open.remove(id);
+                    status.remove(id);
+                }
+            }
+            out.write("</body></html>\n");
+        }
+    }
+
+    // screenshot paths are relative to test-output, like the ones ExtentReports gets
+    private static String relative(Path base, String path) {
+        Path target = Shard.outputDir().resolve(path).toAbsolutePath();
+        return base.relativize(target).toString().replace('\\', '/');
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parse(String line) {
+        if (line.isBlank()) return null;
+        try {
+            return JSON.toType(line, Map.class);
+        } catch (RuntimeException e) {
+            return null; // a line cut off by a crash
+        }
+    }
+
+    private static String esc(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
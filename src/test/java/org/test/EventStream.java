@@ -0,0 +1,83 @@
+package org.test;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append-only JSON Lines log of the run: one line per suite, test, step and screenshot
+ * event, flushed as it happens. It can be tailed during a long run, survives a JVM
+ * that dies half way, and keeps nothing in memory; {@link EventReport} turns it into
+ * HTML. Location: -Devents.file (default test-output/events/events-<timestamp>.jsonl).
+ */
+public final class EventStream {
+
+    private static final Json JSON = new Json();
+    private static BufferedWriter out;
+    private static Path file;
+
+    private EventStream() {}
+
+    public static synchronized Path file() {
+        if (file == null) {
+            String date = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+            file = System.getProperty("events.file") != null
+                    ? Paths.get(System.getProperty("events.file"))
+                    : Shard.outputDir().resolve("events").resolve("events-" + date + ".jsonl");
+        }
+        return file;
+    }
+
+    /** Appends one event; extra is alternating key, value pairs. */
+    public static void emit(String type, Object... extra) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("ts", System.currentTimeMillis());
+        event.put("type", type);
+        event.put("thread", Thread.currentThread().getName());
+        for (int i = 0; i + 1 < extra.length; i += 2) {
+            if (extra[i + 1] != null) event.put(String.valueOf(extra[i]), extra[i + 1]);
+        }
+        write(toLine(event));
+    }
+
+    static String toLine(Map<String, Object> event) {
+        StringBuilder line = new StringBuilder();
+        try (JsonOutput json = JSON.newOutput(line)) {
+            json.setPrettyPrint(false);
+            json.write(event);
+        }
+        return line.toString();
+    }
+
+    private static synchronized void write(String line) {
+        try {
+            if (out == null) {
+                Path target = file();
+                if (target.getParent() != null) Files.createDirectories(target.getParent());
+                out = Files.newBufferedWriter(target, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            out.write(line);
+            out.newLine();
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Failed to write event: " + e.getMessage());
+        }
+    }
+
+    public static synchronized void close() {
+        if (out == null) return;
+        try { out.close(); } catch (IOException ignored) {}
+        out = null;
+    }
+}
@@ -0,0 +1,124 @@
+package org.test;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A step's field writes collected and applied in one script call. Every field is
+ * located first; only when all of them are there (and visible, where asked for) are
+ * the values written, with input/change/keyup/blur events, and read back. The
+ * outcome of each field comes back in the same response.
+ *
+ * Typical use: build the batch, then {@link #runWhenReady} with the step's wait, which
+ * polls the same script until the fields have rendered.
+ */
+public final class FormBatch {
+
+    // ops: [kind, expression, action, value]; action: type (visible), set (may be hidden), require (attribute non-empty)
+    private static final String BATCH_SCRIPT =
+        "const ops = arguments[0];" +
+        "const find = (k, e) => { try {" +
+        "  if (k === 'css') return document.querySelector(e);" +
+        "  return document.evaluate(e, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;" +
+        "} catch (x) { return null; } };" +
+        "const visible = el => { const s = getComputedStyle(el);" +
+        "  return s.visibility !== 'hidden' && s.display !== 'none' && el.getClientRects().length > 0; };" +
+        "const els = ops.map(o => find(o[0], o[1]));" +
+        "const missing = [];" +
+        "ops.forEach((o, i) => { const el = els[i];" +
+        "  if (!el || (o[2] !== 'set' && !visible(el))) missing.push(i);" +
+        "  else if (o[2] === 'require' && !(el.getAttribute(o[3]) || '').trim()) missing.push(i);" +
+        "});" +
+        "if (missing.length) return { ready: false, missing: missing };" +
+        // the prototype setter keeps framework-controlled inputs (React and friends) in sync
+        "const write = (el, v) => {" +
+        "  const proto = el instanceof HTMLTextAreaElement ? HTMLTextAreaElement.prototype : HTMLInputElement.prototype;" +
+        "  const d = Object.getOwnPropertyDescriptor(proto, 'value');" +
+        "  if (d && d.set) d.set.call(el, v); else el.value = v;" +
+        "  el.setAttribute('value', v);" +
+        "};" +
+        "const digits = s => String(s).replace(/\\D/g, '');" +
+        "const results = ops.map((o, i) => { const el = els[i];" +
+        "  if (o[2] === 'require') return [true, el.getAttribute(o[3])];" +
+        "  try { el.focus(); } catch (x) {}" +
+        "  write(el, o[3]);" +
+        "  ['input', 'change', 'keyup', 'blur'].forEach(e => el.dispatchEvent(new Event(e, { bubbles: true })));" +
+        // phone widgets reformat what they are given, so tel fields are compared by digits
+        "  const ok = el.type === 'tel' ? digits(el.value).endsWith(digits(o[3])) : String(el.value).trim() === String(o[3]).trim();" +
+        "  return [ok, el.value];" +
+        "});" +
+        "return { ready: true, results: results };";
+
+    private final WebDriver driver;
+    private final List<Locator> locators = new ArrayList<>();
+    private final List<List<Object>> ops = new ArrayList<>();
+
+    public FormBatch(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /** Writes value into a visible field. */
+    public FormBatch type(Locator field, String value) {
+        return add(field, "type", value);
+    }
+
+    /** Writes value into a field that may be hidden (e.g. the input behind a custom picker). */
+    public FormBatch set(Locator field, String value) {
+        return add(field, "set", value);
+    }
+
+    /** Holds the batch back until the element is visible with a non-empty attribute. */
+    public FormBatch require(Locator element, String attribute) {
+        return add(element, "require", attribute);
+    }
+
+    private FormBatch add(Locator locator, String action, String value) {
+        locators.add(locator);
+        ops.add(Arrays.asList(locator.kind, locator.expression, action, value));
+        return this;
+    }
+
+    /** One attempt: null if some element is not there yet, otherwise what every field ended up as. */
+    @SuppressWarnings("unchecked")
+    public Result tryRun() {
+        Map<String, Object> response = (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(BATCH_SCRIPT, ops);
+        if (!Boolean.TRUE.equals(response.get("ready"))) return null;
+        return new Result((List<List<Object>>) response.get("results"));
+    }
+
+    /** Polls {@link #tryRun} with the given wait until the fields are there. */
+    public Result runWhenReady(WebDriverWait wait) {
+        return wait.until(d -> tryRun());
+    }
+
+    /** Per-field outcome, in the order the fields were added. */
+    public final class Result {
+        private final List<List<Object>> results;
+
+        private Result(List<List<Object>> results) {
+            this.results = results;
+        }
+
+        public boolean ok(int index) {
+            return Boolean.TRUE.equals(results.get(index).get(0));
+        }
+
+        public String actual(int index) {
+            Object value = results.get(index).get(1);
+            return value == null ? null : String.valueOf(value);
+        }
+
+        /** Locators of the fields that did not take their value. */
+        public List<Locator> failed() {
+            List<Locator> failed = new ArrayList<>();
+            for (int i = 0; i < results.size(); i++) if (!ok(i)) failed.add(locators.get(i));
+            return failed;
+        }
+    }
+}
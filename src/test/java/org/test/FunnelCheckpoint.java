@@ -0,0 +1,157 @@
+package org.test;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Funnel state after a completed stage: URL, cookies, local/session storage and
+ * the value of every form field. {@link QuoteFlow} saves one after each stage so
+ * a retry can pick up at the stage that failed instead of replaying the funnel.
+ *
+ * A retry first checks whether the browser still shows the checkpointed state
+ * (the usual case: same session, page left where it failed). Otherwise the
+ * cookies and storage are restored, the URL reloaded and the fields refilled;
+ * if the page still does not match, the flow starts over.
+ */
+public final class FunnelCheckpoint {
+
+    private static final Map<String, FunnelCheckpoint> LAST = new ConcurrentHashMap<>();
+
+    // fields: name or id -> {value, checked, visible}; storage: {local, session}
+    private static final String CAPTURE_SCRIPT =
+        "const fields = {};" +
+        "document.querySelectorAll('input,select,textarea').forEach(el => {" +
+        "  const key = el.name ? (el.type === 'radio' ? el.name + '=' + el.value : el.name) : el.id;" +
+        "  if (!key || el.type === 'password' || el.type === 'file') return;" +
+        "  const r = el.getBoundingClientRect();" +
+        "  fields[key] = { value: el.value, checked: !!el.checked, visible: r.width > 0 && r.height > 0 };" +
+        "});" +
+        "const dump = s => { const o = {}; try { for (let i = 0; i < s.length; i++) o[s.key(i)] = s.getItem(s.key(i)); } catch (e) {} return o; };" +
+        "return { url: location.href, fields: fields, local: dump(localStorage), session: dump(sessionStorage) };";
+
+    private static final String RESTORE_STORAGE_SCRIPT =
+        "const put = (s, o) => { try { Object.keys(o).forEach(k => s.setItem(k, o[k])); } catch (e) {} };" +
+        "put(localStorage, arguments[0]); put(sessionStorage, arguments[1]);";
+
+    private static final String RESTORE_FIELDS_SCRIPT =
+        "const fields = arguments[0];" +
+        "document.querySelectorAll('input,select,textarea').forEach(el => {" +
+        "  const key = el.name ? (el.type === 'radio' ? el.name + '=' + el.value : el.name) : el.id;" +
+        "  const f = fields[key];" +
+        "  if (!f) return;" +
+        "  if (el.type === 'checkbox' || el.type === 'radio') { if (el.checked === f.checked) return; el.checked = f.checked; }" +
+        "  else { if (el.value === f.value) return; el.value = f.value; }" +
+        "  ['input', 'change', 'blur'].forEach(e => el.dispatchEvent(new Event(e, { bubbles: true })));" +
+        "});";
+
+    public final int stage;
+    public final String stageName;
+    final String url;
+    final Set<Cookie> cookies;
+    final Map<String, Map<String, Object>> fields;
+    final Map<String, Object> localStorage;
+    final Map<String, Object> sessionStorage;
+
+    private FunnelCheckpoint(int stage, String stageName, String url, Set<Cookie> cookies,
+                             Map<String, Map<String, Object>> fields,
+                             Map<String, Object> localStorage, Map<String, Object> sessionStorage) {
+        this.stage = stage;
+        this.stageName = stageName;
+        this.url = url;
+        this.cookies = cookies;
+        this.fields = fields;
+        this.localStorage = localStorage;
+        this.sessionStorage = sessionStorage;
+    }
+
+    @SuppressWarnings("unchecked")
+    static FunnelCheckpoint capture(WebDriver driver, int stage, String stageName) {
+        Map<String, Object> state = (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(CAPTURE_SCRIPT);
+        return new FunnelCheckpoint(stage, stageName, (String) state.get("url"), driver.manage().getCookies(),
+                (Map<String, Map<String, Object>>) state.get("fields"),
+                (Map<String, Object>) state.get("local"), (Map<String, Object>) state.get("session"));
+    }
+
+    /** Last good checkpoint saved under key, or null. */
+    public static FunnelCheckpoint last(String key) {
+        return LAST.get(key);
+    }
+
+    static void save(String key, FunnelCheckpoint checkpoint) {
+        LAST.put(key, checkpoint);
+    }
+
+    static void clear(String key) {
+        LAST.remove(key);
+    }
+
+    /**
+     * True when the page is still at this checkpoint: same URL, every field that had
+     * a value still has it, and the fields that were on screen still are.
+     */
+    @SuppressWarnings("unchecked")
+    boolean matches(WebDriver driver) {
+        Map<String, Object> state;
+        try {
+            state = (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(CAPTURE_SCRIPT);
+        } catch (RuntimeException e) {
+            return false;
+        }
+        if (!url.equals(state.get("url"))) return false;
+        Map<String, Map<String, Object>> now = (Map<String, Map<String, Object>>) state.get("fields");
+        boolean sameStepVisible = false;
+        for (Map.Entry<String, Map<String, Object>> e : fields.entrySet()) {
+            Map<String, Object> then = e.getValue();
+            Map<String, Object> current = now.get(e.getKey());
+            boolean filled = Boolean.TRUE.equals(then.get("checked")) || !String.valueOf(then.get("value")).isEmpty();
+            if (filled && (current == null
+                    || !Objects.equals(then.get("value"), current.get("value"))
+                    || !Objects.equals(then.get("checked"), current.get("checked")))) return false;
+            if (Boolean.TRUE.equals(then.get("visible")) && current != null && Boolean.TRUE.equals(current.get("visible"))) {
+                sameStepVisible = true;
+            }
+        }
+        return sameStepVisible;
+    }
+
+    /** Puts a fresh or reset session back at this checkpoint; false if the page did not come back to it. */
+    boolean restore(WebDriver driver) {
+        try {
+            driver.get(url);
+            for (Cookie cookie : cookies) {
+                try { driver.manage().addCookie(cookie); } catch (RuntimeException ignored) {}
+            }
+            ((JavascriptExecutor) driver).executeScript(RESTORE_STORAGE_SCRIPT, localStorage, sessionStorage);
+            driver.navigate().refresh();
+            ((JavascriptExecutor) driver).executeScript(RESTORE_FIELDS_SCRIPT, fields);
+            return matches(driver);
+        } catch (RuntimeException e) {
+            System.err.println("Checkpoint restore failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Resumes from the stage after this one if the browser is, or can be put back, at this checkpoint. */
+    int resumeFrom(WebDriver driver) {
+        if (matches(driver)) return stage + 1;
+        System.out.println("Checkpoint '" + stageName + "' is not on screen, restoring it...");
+        return restore(driver) ? stage + 1 : 0;
+    }
+
+    @Override
+    public String toString() {
+        List<String> filled = new ArrayList<>();
+        fields.forEach((k, v) -> {
+            if (Boolean.TRUE.equals(v.get("checked")) || !String.valueOf(v.get("value")).isEmpty()) filled.add(k);
+        });
+        return "after " + stageName + " at " + url + " " + filled;
+    }
+}
@@ -0,0 +1,24 @@
+package org.test;
+
+import org.testng.IRetryAnalyzer;
+import org.testng.ITestResult;
+
+/**
+ * Retries a failed funnel test up to -Dquote.retries times (default 1). The retry
+ * runs on the same thread and session, so {@link QuoteFlow#resumable} picks up
+ * from the last {@link FunnelCheckpoint} instead of replaying the whole funnel.
+ */
+public class FunnelRetry implements IRetryAnalyzer {
+
+    private static final int MAX_RETRIES = Integer.getInteger("quote.retries", 1);
+
+    private int attempts;
+
+    @Override
+    public boolean retry(ITestResult result) {
+        if (attempts >= MAX_RETRIES) return false;
+        attempts++;
+        System.out.println("Retrying " + result.getName() + " (" + attempts + "/" + MAX_RETRIES + ")");
+        return true;
+    }
+}
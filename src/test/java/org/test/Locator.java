@@ -0,0 +1,31 @@
+package org.test;
+
+import org.openqa.selenium.By;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A CSS or XPath expression that {@link LocatorResolver} evaluates inside the page.
+ */
+public final class Locator {
+
+    public final String kind;
+    public final String expression;
+
+    private Locator(String kind, String expression) {
+        this.kind = kind;
+        this.expression = expression;
+    }
+
+    public static Locator css(String selector) { return new Locator("css", selector); }
+
+    public static Locator xpath(String expression) { return new Locator("xpath", expression); }
+
+    List<String> toScriptArg() { return Arrays.asList(kind, expression); }
+
+    By toBy() { return "css".equals(kind) ? By.cssSelector(expression) : By.xpath(expression); }
+
+    @Override
+    public String toString() { return kind + "=" + expression; }
+}
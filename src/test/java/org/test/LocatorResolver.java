@@ -0,0 +1,88 @@
+package org.test;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves an ordered list of fallback locators in one injected script. Every
+ * candidate is evaluated inside the page and the first visible (and optionally
+ * enabled) element wins, so a lookup costs one round trip to the driver no matter
+ * how many fallbacks there are.
+ */
+public class LocatorResolver {
+
+    private static final String PREDICATES =
+        "const visible=el=>{ const s=getComputedStyle(el);" +
+        "  return s.visibility!=='hidden' && s.display!=='none' && el.getClientRects().length>0; };" +
+        "const enabled=el=>!el.disabled && String(el.getAttribute('aria-disabled')).toLowerCase()!=='true'" +
+        "  && !String(el.className).toLowerCase().includes('disabled');";
+
+    // arguments: [[kind, expression], ...], requireEnabled
+    private static final String RESOLVE_SCRIPT =
+        "const specs=arguments[0], requireEnabled=arguments[1];" +
+        PREDICATES +
+        "const query=(kind,expr)=>{" +
+        "  if(kind==='css') return Array.from(document.querySelectorAll(expr));" +
+        "  const r=document.evaluate(expr,document,null,XPathResult.ORDERED_NODE_SNAPSHOT_TYPE,null), out=[];" +
+        "  for(let i=0;i<r.snapshotLength;i++) out.push(r.snapshotItem(i));" +
+        "  return out;" +
+        "};" +
+        "for(let i=0;i<specs.length;i++){" +
+        "  let nodes=[];" +
+        "  try { nodes=query(specs[i][0],specs[i][1]); } catch(e) { continue; }" +
+        "  const hit=nodes.find(n=>n.nodeType===1 && visible(n) && (!requireEnabled || enabled(n)));" +
+        "  if(hit) return [i,hit];" +
+        "}" +
+        "return null;";
+
+    private static final String CLICKABLE_SCRIPT = PREDICATES + "return visible(arguments[0]) && enabled(arguments[0]);";
+
+    /** The element that matched and the locator that found it. */
+    public static final class Match {
+        public final WebElement element;
+        public final Locator locator;
+
+        Match(WebElement element, Locator locator) {
+            this.element = element;
+            this.locator = locator;
+        }
+
+        @Override
+        public String toString() { return "matched by " + locator; }
+    }
+
+    private final WebDriver driver;
+
+    public LocatorResolver(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /** First visible element across the candidates, in order; null if none match. */
+    public Match firstVisible(Locator... candidates) {
+        return resolve(false, candidates);
+    }
+
+    /** First visible element that is not disabled (attribute, aria-disabled or class); null if none match. */
+    public Match firstClickable(Locator... candidates) {
+        return resolve(true, candidates);
+    }
+
+    /** Whether an element already resolved is visible and not disabled, by the same rules as {@link #firstClickable}. */
+    public boolean isClickable(WebElement element) {
+        return Boolean.TRUE.equals(((JavascriptExecutor) driver).executeScript(CLICKABLE_SCRIPT, element));
+    }
+
+    private Match resolve(boolean requireEnabled, Locator... candidates) {
+        List<List<String>> specs = new ArrayList<>();
+        for (Locator candidate : candidates) specs.add(candidate.toScriptArg());
+        Object result = ((JavascriptExecutor) driver).executeScript(RESOLVE_SCRIPT, specs, requireEnabled);
+        if (!(result instanceof List)) return null;
+        List<?> hit = (List<?>) result;
+        int index = ((Number) hit.get(0)).intValue();
+        return new Match((WebElement) hit.get(1), candidates[index]);
+    }
+}
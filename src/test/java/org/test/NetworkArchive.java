@@ -0,0 +1,172 @@
+package org.test;
+
+import org.openqa.selenium.devtools.NetworkInterceptor;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * On-disk record/replay cache for page resources, applied through DevTools request
+ * interception ({@link NetworkRouting}).
+ *
+ * -Dnetwork.mode=record stores every successful GET for scripts, styles, fonts, images
+ * and JSON under -Dnetwork.archive (default network-archive/). -Dnetwork.mode=replay
+ * serves static assets from the archive without touching the network; recorded API
+ * responses are replayed too when their URL contains one of -Dnetwork.replay.api
+ * (comma separated, e.g. "address,postcode"). Documents and anything that is not a
+ * GET, including the quote form submission, always go to the site.
+ */
+public final class NetworkArchive {
+
+    public enum Mode { OFF, RECORD, REPLAY }
+
+    private static final List<String> STATIC_EXTENSIONS = Arrays.asList(
+            ".js", ".mjs", ".css", ".woff", ".woff2", ".ttf", ".otf", ".eot",
+            ".png", ".jpg", ".jpeg", ".gif", ".svg", ".webp", ".avif", ".ico");
+    private static final List<String> STATIC_TYPES = Arrays.asList(
+            "javascript", "css", "font", "image/");
+    private static final List<String> DROPPED_HEADERS = Arrays.asList(
+            "content-length", "content-encoding", "transfer-encoding", "set-cookie", "date");
+
+    private static final Json JSON = new Json();
+    private static final AtomicInteger RECORDED = new AtomicInteger();
+    private static final AtomicInteger REPLAYED = new AtomicInteger();
+    private static final AtomicInteger PASSED = new AtomicInteger();
+
+    private NetworkArchive() {}
+
+    public static Mode mode() {
+        return Mode.valueOf(System.getProperty("network.mode", "off").trim().toUpperCase(Locale.ROOT));
+    }
+
+    static Path dir() {
+        return Paths.get(System.getProperty("network.archive", "network-archive"));
+    }
+
+    /** e.g. "replay: 120 served from archive, 14 from network". */
+    public static String summary() {
+        switch (mode()) {
+            case RECORD: return "record: " + RECORDED.get() + " responses stored in " + dir();
+            case REPLAY: return "replay: " + REPLAYED.get() + " served from archive, " + PASSED.get() + " from network";
+            default: return "off";
+        }
+    }
+
+    static Filter filter() {
+        final Mode mode = mode();
+        final List<String> apiPatterns = csv(System.getProperty("network.replay.api", ""));
+        return next -> req -> {
+            if (req.getMethod() != HttpMethod.GET || mode == Mode.OFF) return NetworkInterceptor.PROCEED_WITH_REQUEST;
+            String url = req.getUri();
+            if (mode == Mode.REPLAY) {
+                Map<String, Object> meta = load(url);
+                if (meta != null && (isStatic(url, (String) meta.get("contentType")) || matchesAny(url, apiPatterns))) {
+                    HttpResponse replayed = replay(url, meta);
+                    if (replayed != null) {
+                        REPLAYED.incrementAndGet();
+                        return replayed;
+                    }
+                }
+                PASSED.incrementAndGet();
+                return NetworkInterceptor.PROCEED_WITH_REQUEST;
+            }
+            // the content type is only known once the response is in, so record mode sees every GET
+            HttpResponse res = next.execute(req);
+            if (res.getStatus() == 200) record(url, res);
+            return res;
+        };
+    }
+
+    private static void record(String url, HttpResponse res) {
+        String contentType = String.valueOf(res.getHeader("Content-Type")).toLowerCase(Locale.ROOT);
+        if (!isStatic(url, contentType) && !contentType.contains("json")) return;
+        try {
+            Map<String, String> headers = new LinkedHashMap<>();
+            res.forEachHeader((name, value) -> {
+                if (!DROPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) headers.put(name, value);
+            });
+            Map<String, Object> meta = new LinkedHashMap<>();
+            meta.put("url", url);
+            meta.put("status", res.getStatus());
+            meta.put("contentType", contentType);
+            meta.put("headers", headers);
+
+            String key = key(url);
+            Files.createDirectories(dir());
+            write(dir().resolve(key + ".bin"), Contents.bytes(res.getContent()));
+            write(dir().resolve(key + ".json"), JSON.toJson(meta).getBytes(StandardCharsets.UTF_8));
+            RECORDED.incrementAndGet();
+        } catch (IOException e) {
+            System.err.println("Failed to record " + url + ": " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse replay(String url, Map<String, Object> meta) {
+        try {
+            byte[] body = Files.readAllBytes(dir().resolve(key(url) + ".bin"));
+            HttpResponse res = new HttpResponse().setStatus(((Number) meta.get("status")).intValue());
+            ((Map<String, Object>) meta.get("headers")).forEach((name, value) -> res.addHeader(name, String.valueOf(value)));
+            res.setContent(Contents.bytes(body));
+            return res;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> load(String url) {
+        Path meta = dir().resolve(key(url) + ".json");
+        if (!Files.exists(meta)) return null;
+        try {
+            return JSON.toType(new String(Files.readAllBytes(meta), StandardCharsets.UTF_8), Map.class);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // written to a temp file first so parallel sessions never read half a response
+    private static void write(Path target, byte[] bytes) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        Files.write(tmp, bytes);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static boolean isStatic(String url, String contentType) {
+        String path = url.toLowerCase(Locale.ROOT).replaceAll("[?#].*$", "");
+        for (String ext : STATIC_EXTENSIONS) if (path.endsWith(ext)) return true;
+        if (contentType != null) for (String type : STATIC_TYPES) if (contentType.contains(type)) return true;
+        return false;
+    }
+
+    private static boolean matchesAny(String url, List<String> patterns) {
+        for (String p : patterns) if (url.contains(p)) return true;
+        return false;
+    }
+
+    private static List<String> csv(String value) {
+        return value.isBlank() ? Arrays.asList() : Arrays.asList(value.trim().split("\\s*,\\s*"));
+    }
+
+    private static String key(String url) {
+        MessageDigest digest = ArtifactStore.sha256();
+        digest.update(url.getBytes(StandardCharsets.UTF_8));
+        return ArtifactStore.hex(digest);
+    }
+}
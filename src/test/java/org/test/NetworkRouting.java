@@ -0,0 +1,38 @@
+package org.test;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.devtools.NetworkInterceptor;
+import org.openqa.selenium.remote.http.Filter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-session network setup: the {@link BlockingProfile} block list, then one
+ * DevTools request interceptor running the network filters switched on for this run.
+ */
+final class NetworkRouting {
+
+    private static final Map<WebDriver, NetworkInterceptor> INTERCEPTORS = new ConcurrentHashMap<>();
+
+    private NetworkRouting() {}
+
+    static void install(WebDriver driver) {
+        BlockingProfile.apply(driver);
+        Filter chain = null;
+        if (NetworkArchive.mode() != NetworkArchive.Mode.OFF) chain = NetworkArchive.filter();
+        if (chain == null || !(driver instanceof HasDevTools)) return;
+        try {
+            INTERCEPTORS.put(driver, new NetworkInterceptor(driver, chain));
+        } catch (RuntimeException e) {
+            System.err.println("Network interception unavailable, continuing without it: " + e.getMessage());
+        }
+    }
+
+    static void remove(WebDriver driver) {
+        NetworkInterceptor interceptor = INTERCEPTORS.remove(driver);
+        if (interceptor == null) return;
+        try { interceptor.close(); } catch (RuntimeException ignored) {}
+    }
+}
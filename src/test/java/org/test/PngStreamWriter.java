@@ -0,0 +1,151 @@
+package org.test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an 8-bit RGB PNG of known size row by row, so an image taller than what fits
+ * in memory can be assembled from tiles ({@link ScreenshotService}). Only the current
+ * and the previous row are held; compressed data goes out as 64 KB IDAT chunks. Each
+ * row gets the None, Sub or Up filter, whichever leaves the smallest residuals.
+ */
+final class PngStreamWriter implements AutoCloseable {
+
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private final DataOutputStream out;
+    private final DeflaterOutputStream idat;
+    private final Deflater deflater = new Deflater(6);
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private byte[] row;
+    private byte[] previous;
+    private final byte[][] filtered = new byte[3][];
+    private int rowsWritten;
+
+    PngStreamWriter(OutputStream target, int width, int height) throws IOException {
+        this.out = new DataOutputStream(target);
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width];
+        this.row = new byte[width * 3];
+        this.previous = new byte[width * 3];
+        for (int i = 0; i < filtered.length; i++) filtered[i] = new byte[width * 3];
+        out.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream h = new DataOutputStream(header);
+        h.writeInt(width);
+        h.writeInt(height);
+        h.writeByte(8);  // bit depth
+        h.writeByte(2);  // colour type: RGB
+        h.writeByte(0);  // deflate
+        h.writeByte(0);  // adaptive filtering
+        h.writeByte(0);  // no interlace
+        chunk("IHDR", header.toByteArray(), header.size());
+        idat = new DeflaterOutputStream(new IdatStream(), deflater, CHUNK_BYTES);
+    }
+
+    /** Appends the tile's rows; a narrower tile is padded with white, a wider one cropped. */
+    void writeRows(BufferedImage tile) throws IOException {
+        int w = Math.min(width, tile.getWidth());
+        for (int y = 0; y < tile.getHeight() && rowsWritten < height; y++) {
+            tile.getRGB(0, y, w, 1, pixels, 0, width);
+            for (int x = w; x < width; x++) pixels[x] = 0xffffff;
+            writeRow();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // a short capture still has to yield a valid image of the declared size
+        Arrays.fill(pixels, 0xffffff);
+        while (rowsWritten < height) writeRow();
+        idat.finish();
+        idat.close();
+        deflater.end();
+        chunk("IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    private void writeRow() throws IOException {
+        for (int x = 0, i = 0; x < width; x++) {
+            int p = pixels[x];
+            row[i++] = (byte) (p >> 16);
+            row[i++] = (byte) (p >> 8);
+            row[i++] = (byte) p;
+        }
+        long none = 0, sub = 0, up = 0;
+        for (int i = 0; i < row.length; i++) {
+            byte left = i >= 3 ? row[i - 3] : 0;
+            filtered[0][i] = row[i];
+            filtered[1][i] = (byte) (row[i] - left);
+            filtered[2][i] = (byte) (row[i] - previous[i]);
+            none += Math.abs((int) filtered[0][i]);
+            sub += Math.abs((int) filtered[1][i]);
+            up += Math.abs((int) filtered[2][i]);
+        }
+        int type = none <= sub && none <= up ? 0 : sub <= up ? 1 : 2;
+        idat.write(type);
+        idat.write(filtered[type]);
+        byte[] swap = previous;
+        previous = row;
+        row = swap;
+        rowsWritten++;
+    }
+
+    private void chunk(String type, byte[] data, int length) throws IOException {
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(name);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(name);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    // collects deflated bytes and emits them as IDAT chunks
+    private final class IdatStream extends OutputStream {
+        private final byte[] buffer = new byte[CHUNK_BYTES];
+        private int size;
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer[size++] = (byte) b;
+            if (size == buffer.length) flushChunk();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, buffer.length - size);
+                System.arraycopy(b, off, buffer, size, n);
+                size += n;
+                off += n;
+                len -= n;
+                if (size == buffer.length) flushChunk();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+        }
+
+        private void flushChunk() throws IOException {
+            if (size == 0) return;
+            chunk("IDAT", buffer, size);
+            size = 0;
+        }
+    }
+}
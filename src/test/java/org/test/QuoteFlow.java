@@ -0,0 +1,123 @@
+package org.test;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The quote funnel end to end for one scenario: open the form, walk the three steps,
+ * submit and wait for the thank-you heading. Shared by the daily test and the
+ * throughput runner; callers own the session and decide what a failure means.
+ *
+ * The funnel runs as named stages. {@link #resumable} saves a {@link FunnelCheckpoint}
+ * after each one and, when called again for the same key, carries on from the stage
+ * that failed. It also takes a {@link DomSnapshot} and a {@link VisualCheck} before each
+ * stage and samples {@link WebVitals} after it. Once the thank-you page shows, it checks
+ * that page visually, saves any new visual baselines from this attempt and takes a
+ * last vitals sample.
+ */
+public final class QuoteFlow {
+
+    static final By THANK_YOU = By.cssSelector("h3.ticket-text.ticket-text-color.mb-2.pb-2.border-bottom");
+    private static final Duration THANK_YOU_TIMEOUT = Duration.ofSeconds(45);
+
+    private interface Stage {
+        void run(Test4Steps steps, QuoteScenario scenario, String mainHandle);
+    }
+
+    private static final List<String> STAGE_NAMES = Arrays.asList("category", "schedule", "addresses", "details");
+    private static final List<Stage> STAGES = Arrays.asList(
+            (steps, s, main) -> {
+                steps.chooseCategory(s.category);
+                steps.chooseFirstSubcategory();
+                steps.waitForSubcategoryChecked();
+                steps.clickNextSmart();
+            },
+            (steps, s, main) -> {
+                steps.waitForDateStep();
+                steps.setDateByJS(s.date);
+                try { steps.pickTimeByText(s.time); }
+                catch (TimeoutException | NoSuchElementException e) { StepMetrics.retry(); steps.setTimeByJS(s.time); }
+            },
+            (steps, s, main) -> {
+                steps.selectPickupByIndex(s.pickupQuery, s.pickupIndex);
+                steps.selectDropByIndex(s.dropQuery, s.dropIndex);
+                steps.clickNextSmart();
+            },
+            (steps, s, main) -> {
+                // Wait for customer fields
+                steps.waitForStep3();
+                System.out.println("Filling customer details...");
+                steps.fillCustomerDetails(s.firstName, s.lastName, s.email, s.phone, true, main);
+            });
+
+    private QuoteFlow() {}
+
+    /** Runs the funnel and returns the thank-you heading text. */
+    public static String run(WebDriver driver, QuoteScenario scenario) {
+        return run(driver, scenario, null);
+    }
+
+    /**
+     * Like {@link #run}, but checkpointed under key: after a failure, the next call with
+     * the same key resumes from the failed stage. The checkpoints are dropped on success.
+     */
+    public static String resumable(WebDriver driver, QuoteScenario scenario, String key) {
+        String text = run(driver, scenario, key);
+        FunnelCheckpoint.clear(key);
+        DomSnapshot.promote();
+        return text;
+    }
+
+    private static String run(WebDriver driver, QuoteScenario scenario, String key) {
+        Test4Steps steps = new Test4Steps(driver);
+        if (key != null) {
+            DomSnapshot.begin();
+            VisualCheck.begin();
+        }
+        FunnelCheckpoint checkpoint = key == null ? null : FunnelCheckpoint.last(key);
+        int from = checkpoint == null ? 0 : checkpoint.resumeFrom(driver);
+        if (from > 0) {
+            System.out.println("Resuming funnel at '" + (from < STAGES.size() ? STAGE_NAMES.get(from) : "submit") + "', checkpoint " + checkpoint);
+        } else {
+            if (key != null) FunnelCheckpoint.clear(key);
+            driver.get(QuoteTarget.quoteUrl());
+            steps.debug("Booking flow started | URL: " + driver.getCurrentUrl());
+        }
+        String mainHandle = driver.getWindowHandle();
+
+        for (int i = from; i < STAGES.size(); i++) {
+            final int stage = i;
+            if (key != null) {
+                DomSnapshot.beforeStage(driver, STAGE_NAMES.get(stage));
+                VisualCheck.check(driver, key, STAGE_NAMES.get(stage));
+            }
+            StepMetrics.time("stage:" + STAGE_NAMES.get(stage), () -> STAGES.get(stage).run(steps, scenario, mainHandle));
+            if (key != null) WebVitals.sample(driver, STAGE_NAMES.get(stage));
+            if (key != null) FunnelCheckpoint.save(key, FunnelCheckpoint.capture(driver, stage, STAGE_NAMES.get(stage)));
+        }
+
+        System.out.println("Submitting quote...");
+        if (key != null) {
+            DomSnapshot.beforeStage(driver, "submit");
+            VisualCheck.check(driver, key, "submit");
+        }
+        steps.clickSubmit(mainHandle);
+
+        WebElement thankYou = new TimedWait(driver, "thankYou", THANK_YOU_TIMEOUT)
+                .until(ExpectedConditions.visibilityOfElementLocated(THANK_YOU));
+        if (key != null) {
+            WebVitals.sample(driver, "submit");
+            VisualCheck.check(driver, key, "thankYou");
+            VisualCheck.confirm();
+        }
+        return thankYou.getText();
+    }
+}
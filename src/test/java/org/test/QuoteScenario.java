@@ -0,0 +1,126 @@
+package org.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One set of inputs for the RentX quote funnel.
+ */
+public class QuoteScenario {
+
+    public final String category;
+    public final String date;
+    public final String time;
+    public final String pickupQuery;
+    public final int pickupIndex;
+    public final String dropQuery;
+    public final int dropIndex;
+    public final String firstName;
+    public final String lastName;
+    public final String email;
+    public final String phone;
+
+    public QuoteScenario(String category, String date, String time,
+                         String pickupQuery, int pickupIndex,
+                         String dropQuery, int dropIndex,
+                         String firstName, String lastName, String email, String phone) {
+        this.category = category;
+        this.date = date;
+        this.time = time;
+        this.pickupQuery = pickupQuery;
+        this.pickupIndex = pickupIndex;
+        this.dropQuery = dropQuery;
+        this.dropIndex = dropIndex;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.phone = phone;
+    }
+
+    /** The scenario the daily run has always used. */
+    public static QuoteScenario defaults() {
+        return new QuoteScenario("l", "19-12-2026", "01:00 PM",
+                "st", 1, "12", 2,
+                "Test Vel", "Test Mobo", "vel@mobo.co.uk", "8888888888");
+    }
+
+    /**
+     * Cross product of the categories and addresses passed on the command line, e.g.
+     * {@code -Dquote.categories=l,s -Dquote.pickups=st:1,sw:2 -Dquote.drops=12:2}.
+     * Dimensions that are not given fall back to the default scenario. Returns an
+     * empty list when no matrix property is set at all.
+     */
+    public static List<QuoteScenario> matrix() {
+        String categories = System.getProperty("quote.categories");
+        String pickups = System.getProperty("quote.pickups");
+        String drops = System.getProperty("quote.drops");
+        List<QuoteScenario> scenarios = new ArrayList<>();
+        if (categories == null && pickups == null && drops == null) return scenarios;
+
+        QuoteScenario base = defaults();
+        for (String category : split(categories, base.category)) {
+            for (String pickup : split(pickups, base.pickupQuery + ":" + base.pickupIndex)) {
+                for (String drop : split(drops, base.dropQuery + ":" + base.dropIndex)) {
+                    scenarios.add(new QuoteScenario(category, base.date, base.time,
+                            query(pickup), index(pickup), query(drop), index(drop),
+                            base.firstName, base.lastName, base.email, base.phone));
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    /**
+     * Builds a scenario from a CSV row or JSON object keyed by column name (category, date,
+     * time, pickup_query, pickup_index, drop_query, drop_index, first_name, last_name,
+     * email, phone). Blank or missing columns keep the default scenario's value.
+     */
+    public static QuoteScenario fromFields(Map<String, ?> fields) {
+        QuoteScenario base = defaults();
+        return new QuoteScenario(
+                field(fields, "category", base.category),
+                field(fields, "date", base.date),
+                field(fields, "time", base.time),
+                field(fields, "pickup_query", base.pickupQuery),
+                Integer.parseInt(field(fields, "pickup_index", String.valueOf(base.pickupIndex))),
+                field(fields, "drop_query", base.dropQuery),
+                Integer.parseInt(field(fields, "drop_index", String.valueOf(base.dropIndex))),
+                field(fields, "first_name", base.firstName),
+                field(fields, "last_name", base.lastName),
+                field(fields, "email", base.email),
+                field(fields, "phone", base.phone));
+    }
+
+    /** File-name friendly identifier, unique within a matrix. */
+    public String slug() {
+        return (category + "_" + pickupQuery + pickupIndex + "_" + dropQuery + dropIndex)
+                .replaceAll("[^A-Za-z0-9_-]", "");
+    }
+
+    @Override
+    public String toString() {
+        return category + " | " + pickupQuery + "#" + pickupIndex + " -> " + dropQuery + "#" + dropIndex;
+    }
+
+    private static String field(Map<String, ?> fields, String name, String fallback) {
+        Object value = fields.get(name);
+        if (value instanceof Number) return String.valueOf(((Number) value).longValue());
+        return value == null || String.valueOf(value).isBlank() ? fallback : String.valueOf(value).trim();
+    }
+
+    private static String[] split(String csv, String fallback) {
+        if (csv == null || csv.isBlank()) return new String[] { fallback };
+        return csv.split("\\s*,\\s*");
+    }
+
+    private static String query(String queryAndIndex) {
+        int colon = queryAndIndex.lastIndexOf(':');
+        return colon < 0 ? queryAndIndex : queryAndIndex.substring(0, colon);
+    }
+
+    private static int index(String queryAndIndex) {
+        int colon = queryAndIndex.lastIndexOf(':');
+        return colon < 0 ? 1 : Integer.parseInt(queryAndIndex.substring(colon + 1).trim());
+    }
+}
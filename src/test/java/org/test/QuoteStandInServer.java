@@ -0,0 +1,171 @@
+package org.test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded stand-in for rentx.com/quote: the three-step form (category autocomplete,
+ * subcategory radios, date/time, pickup/drop-off autocomplete, customer details) and
+ * the thank-you page, served from src/test/resources/standin. Gives a network-free,
+ * deterministic target for profiling the automation itself.
+ *
+ * Latency injection (milliseconds): -Dstandin.pageDelayMs, -Dstandin.suggestDelayMs,
+ * -Dstandin.submitDelayMs. Port: -Dstandin.port (default: any free port).
+ */
+public final class QuoteStandInServer {
+
+    private static final List<String> SERVICES = Arrays.asList(
+            "Luton Van Hire", "Large Van Hire", "Lorry Hire", "Low Loader Hire", "Man and Van",
+            "Minibus Hire", "Self Drive Van", "Small Van Hire", "Storage Container", "Tipper Hire");
+    private static final List<String> STREETS = Arrays.asList(
+            "Station Road, London", "Stanley Street, Leeds", "Stockwell Road, London", "Strand, London",
+            "Church Street, Manchester", "High Street, Bristol", "Mill Lane, Birmingham", "Park Road, Luton");
+
+    private static QuoteStandInServer instance;
+
+    private final HttpServer server;
+    private final AtomicInteger submissions = new AtomicInteger();
+
+    private QuoteStandInServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(Executors.newFixedThreadPool(32, r -> {
+            Thread t = new Thread(r, "standin-http");
+            t.setDaemon(true);
+            return t;
+        }));
+        server.createContext("/quote/submit", this::submit);
+        server.createContext("/quote", exchange -> {
+            delay("standin.pageDelayMs");
+            send(exchange, 200, "text/html", resource("quote.html"));
+        });
+        server.createContext("/api/suggest", this::suggest);
+        server.createContext("/", exchange -> send(exchange, 404, "text/plain", "Not found"));
+        server.start();
+    }
+
+    /** Starts the shared server on first use. */
+    public static synchronized QuoteStandInServer start() {
+        if (instance == null) {
+            try {
+                instance = new QuoteStandInServer(Integer.getInteger("standin.port", 0));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not start quote stand-in server", e);
+            }
+            System.out.println("Quote stand-in server listening on " + instance.baseUrl());
+        }
+        return instance;
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public String quoteUrl() {
+        return baseUrl() + "/quote";
+    }
+
+    /** Quote forms accepted since the server started. */
+    public int submissions() {
+        return submissions.get();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private void suggest(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parse(exchange.getRequestURI().getRawQuery());
+        String q = params.getOrDefault("q", "").trim().toLowerCase(Locale.ROOT);
+        List<String> matches = new ArrayList<>();
+        if ("service".equals(params.get("type"))) {
+            for (String s : SERVICES) if (s.toLowerCase(Locale.ROOT).contains(q)) matches.add(s);
+        } else {
+            for (String s : STREETS) if (s.toLowerCase(Locale.ROOT).contains(q)) matches.add(s);
+            for (int i = 1; matches.size() < 5; i++) matches.add(q.toUpperCase(Locale.ROOT) + " " + i + " " + STREETS.get(i % STREETS.size()));
+        }
+        StringBuilder json = new StringBuilder("[");
+        for (String m : matches) {
+            if (json.length() > 1) json.append(',');
+            json.append('"').append(m.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        delay("standin.suggestDelayMs");
+        send(exchange, 200, "application/json", json.append(']').toString());
+    }
+
+    private void submit(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, "text/plain", "POST only");
+            return;
+        }
+        Map<String, String> form = parse(new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8));
+        delay("standin.submitDelayMs");
+        String reference = "SI-" + (1000 + submissions.incrementAndGet());
+        String html = resource("thank-you.html")
+                .replace("{{first_name}}", escape(form.getOrDefault("first_name", "")))
+                .replace("{{reference}}", reference);
+        send(exchange, 200, "text/html", html);
+    }
+
+    private static void delay(String property) {
+        long ms = Long.getLong(property, 0L);
+        if (ms <= 0) return;
+        try { Thread.sleep(ms); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+
+    private static void send(HttpExchange exchange, int status, String type, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", type + "; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = QuoteStandInServer.class.getResourceAsStream("/standin/" + name)) {
+            if (in == null) throw new IOException("Missing stand-in resource " + name);
+            return new String(readAll(in), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) > 0; ) out.write(buffer, 0, n);
+        return out.toByteArray();
+    }
+
+    private static Map<String, String> parse(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
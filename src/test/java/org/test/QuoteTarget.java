@@ -0,0 +1,20 @@
+package org.test;
+
+/**
+ * Where the quote funnel is driven: the live site (default) or the embedded
+ * {@link QuoteStandInServer} with {@code -Dquote.target=standin}.
+ */
+public final class QuoteTarget {
+
+    private static final String LIVE_URL = "https://rentx.com/quote";
+
+    private QuoteTarget() {}
+
+    public static boolean isStandIn() {
+        return "standin".equalsIgnoreCase(System.getProperty("quote.target", "live"));
+    }
+
+    public static String quoteUrl() {
+        return isStandIn() ? QuoteStandInServer.start().quoteUrl() : LIVE_URL;
+    }
+}
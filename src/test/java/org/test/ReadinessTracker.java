@@ -0,0 +1,127 @@
+package org.test;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Follows a session's XHR/fetch traffic and main-frame navigations through DevTools
+ * events, so steps can wait on what the page is actually doing instead of polling
+ * for overlays. "Quiet" means nothing in flight and no request started or finished
+ * for -Dreadiness.quietMs (default 300). Requests older than -Dreadiness.staleMs
+ * (default 10000) are treated as long polls and do not count as in flight, except
+ * in {@link #answeredSince}, where requests the action itself started always count.
+ */
+public final class ReadinessTracker {
+
+    static final long QUIET_MILLIS = Long.getLong("readiness.quietMs", 300L);
+    private static final long STALE_MILLIS = Long.getLong("readiness.staleMs", 10_000L);
+    private static final Map<WebDriver, ReadinessTracker> TRACKERS = new ConcurrentHashMap<>();
+
+    // requestId -> { sequence number (the started count it got), start time }, XHR and fetch only
+    private final Map<String, long[]> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong navigations = new AtomicLong();
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    private ReadinessTracker() {}
+
+    @SuppressWarnings("unchecked")
+    static void attach(WebDriver driver) {
+        if (!(driver instanceof HasDevTools)) return;
+        try {
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            ReadinessTracker tracker = new ReadinessTracker();
+            devTools.addListener(event("Network.requestWillBeSent"), e -> {
+                Object type = e.get("type");
+                if (!"XHR".equals(type) && !"Fetch".equals(type)) return;
+                // a redirect reuses the requestId and keeps its sequence number
+                String requestId = (String) e.get("requestId");
+                long[] previous = tracker.inFlight.get(requestId);
+                long sequence = previous != null ? previous[0] : tracker.started.incrementAndGet();
+                tracker.inFlight.put(requestId, new long[] { sequence, System.currentTimeMillis() });
+                tracker.lastActivity = System.currentTimeMillis();
+            });
+            devTools.addListener(event("Network.loadingFinished"), e -> tracker.finished(e));
+            devTools.addListener(event("Network.loadingFailed"), e -> tracker.finished(e));
+            devTools.addListener(event("Page.frameNavigated"), e -> {
+                Map<String, Object> frame = (Map<String, Object>) e.get("frame");
+                if (frame == null || frame.get("parentId") != null) return;
+                // requests of the previous document never report back
+                tracker.inFlight.clear();
+                tracker.navigations.incrementAndGet();
+                tracker.lastActivity = System.currentTimeMillis();
+            });
+            devTools.send(new Command<>("Network.enable", new HashMap<>()));
+            devTools.send(new Command<>("Page.enable", new HashMap<>()));
+            TRACKERS.put(driver, tracker);
+        } catch (RuntimeException e) {
+            System.err.println("Readiness tracking unavailable, falling back to polling: " + e.getMessage());
+        }
+    }
+
+    static void detach(WebDriver driver) {
+        TRACKERS.remove(driver);
+    }
+
+    /** The session's tracker, or null when DevTools is not available. */
+    public static ReadinessTracker of(WebDriver driver) {
+        return TRACKERS.get(driver);
+    }
+
+    /** Marks the current point; take it just before the action to wait on. */
+    public long[] mark() {
+        return new long[] { started.get(), navigations.get(), System.currentTimeMillis() };
+    }
+
+    /** No XHR/fetch in flight and nothing started or finished for quietMillis. */
+    public boolean networkIdle(long quietMillis) {
+        return networkIdle(quietMillis, Long.MAX_VALUE);
+    }
+
+    // requests numbered after startedBefore count as in flight however long they take
+    private boolean networkIdle(long quietMillis, long startedBefore) {
+        long now = System.currentTimeMillis();
+        for (long[] request : inFlight.values()) {
+            if (request[0] > startedBefore || now - request[1] < STALE_MILLIS) return false;
+        }
+        return now - lastActivity >= quietMillis;
+    }
+
+    /**
+     * The action behind mark has played out: a main-frame navigation has committed, or
+     * the network has been quiet for the quiet period since the action, whether or not
+     * it made any requests.
+     */
+    public ExpectedCondition<Boolean> settledSince(long[] mark) {
+        return d -> navigations.get() > mark[1]
+                || (networkIdle(QUIET_MILLIS) && System.currentTimeMillis() - mark[2] >= QUIET_MILLIS);
+    }
+
+    /**
+     * Navigation committed since mark, or the XHR/fetch requests started since mark have
+     * all come back, slow ones included. For actions that must reach the server, like
+     * submitting the quote.
+     */
+    public ExpectedCondition<Boolean> answeredSince(long[] mark) {
+        return d -> navigations.get() > mark[1] || (started.get() > mark[0] && networkIdle(QUIET_MILLIS, mark[0]));
+    }
+
+    private void finished(Map<String, Object> event) {
+        if (inFlight.remove((String) event.get("requestId")) != null) lastActivity = System.currentTimeMillis();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Event<Map<String, Object>> event(String method) {
+        return new Event<>(method, input -> (Map<String, Object>) input.read(Map.class));
+    }
+}
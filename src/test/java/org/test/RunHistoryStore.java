@@ -0,0 +1,414 @@
+package org.test;
+
+import org.HdrHistogram.Histogram;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only history of runs under -Dhistory.dir (default run-history/), so trends
+ * survive the per-run report files. Each run appends its test outcomes, step
+ * histograms and {@link WebVitals} samples to records/&lt;yyyy-MM&gt;/&lt;yyyy-MM-dd&gt;.jsonl,
+ * which is never rewritten, and folds them into that day's rollup
+ * (rollups/&lt;yyyy-MM-dd&gt;.json): merged step histograms, runs and failures per test,
+ * failures per locator and a histogram per blocking profile, stage and web vital. Trend queries read
+ * one rollup per day in the window, however many runs it holds; {@link #rebuild}
+ * regenerates the rollups from the records.
+ *
+ * Failures, including attempts that were retried, are classified by exception type
+ * and by the locator (or, when none can be found in the message, a normalised first
+ * line) they report.
+ *
+ * {@code java -cp <test classpath> org.test.RunHistoryStore} prints the trend tables;
+ * {@code ... org.test.RunHistoryStore --rebuild} regenerates the rollups.
+ */
+public final class RunHistoryStore {
+
+    private static final Json JSON = new Json();
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final long MAX_VITAL = TimeUnit.MINUTES.toMillis(10);
+    private static final int TREND_DAYS = Integer.getInteger("history.trendDays", 30);
+    private static final int RECENT_DAYS = Integer.getInteger("history.recentDays", 7);
+
+    private static final Pattern BY_LOCATOR = Pattern.compile("By\\.\\w+: ([^\\n]+?)(?:\\s*\\(tried|\\s*$|\\n)");
+    private static final Pattern SELECTOR = Pattern.compile("\"selector\":\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    private static final String STARTED = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+    private static final List<Map<String, Object>> PENDING = new ArrayList<>();
+
+    private RunHistoryStore() {}
+
+    static Path dir() {
+        return Paths.get(System.getProperty("history.dir", "run-history"));
+    }
+
+    /** Identifies the run in the records: -Drun.id, the CI run id, or the start time. */
+    static String runId() {
+        String id = System.getProperty("run.id", System.getenv("GITHUB_RUN_ID"));
+        String base = id != null ? id : STARTED;
+        return Shard.isSharded() ? base + "." + Shard.index() : base;
+    }
+
+    /** Buffers one test outcome for {@link #ingest}. */
+    public static synchronized void recordTest(String name, String status, long durationMillis, Throwable error) {
+        Map<String, Object> test = new LinkedHashMap<>();
+        test.put("kind", "test");
+        test.put("test", name);
+        test.put("status", status);
+        test.put("durationMs", durationMillis);
+        if (error != null) {
+            test.put("cause", error.getClass().getSimpleName());
+            test.put("locator", locatorOf(error));
+        }
+        PENDING.add(test);
+    }
+
+    /** Buffers one stage's web vitals for {@link #ingest}. */
+    public static synchronized void recordVitals(String test, WebVitals.Sample sample) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("kind", "vitals");
+        record.put("test", test);
+        record.put("stage", sample.stage);
+        record.putAll(sample.metrics);
+        PENDING.add(record);
+    }
+
+    /** Appends this run's tests, web vitals and step histograms ({@link StepMetrics#toMap}) and updates today's rollup. */
+    @SuppressWarnings("unchecked")
+    public static synchronized void ingest(Map<String, Object> steps) {
+        if (PENDING.isEmpty() && steps.isEmpty()) return;
+        LocalDate day = LocalDate.now(ZoneOffset.UTC);
+        String run = runId();
+        long ts = System.currentTimeMillis();
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (Map<String, Object> record : PENDING) records.add(stamp(record, run, ts));
+        for (Map.Entry<String, Object> e : steps.entrySet()) {
+            Map<String, Object> step = (Map<String, Object>) e.getValue();
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("kind", "step");
+            record.put("step", e.getKey());
+            record.put("count", step.get("count"));
+            record.put("failures", step.get("failures"));
+            record.put("retries", step.get("retries"));
+            record.put("histogram", ((Map<String, Object>) step.get("histograms")).get("total"));
+            records.add(stamp(record, run, ts));
+        }
+        try {
+            locked(() -> {
+                Path segment = segment(day);
+                Files.createDirectories(segment.getParent());
+                StringBuilder lines = new StringBuilder();
+                for (Map<String, Object> r : records) lines.append(EventStream.toLine(r)).append('\n');
+                Files.write(segment, lines.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+                Rollup rollup = Rollup.read(rollup(day));
+                for (Map<String, Object> r : records) rollup.add(r);
+                rollup.write(rollup(day));
+            });
+            PENDING.clear();
+        } catch (IOException e) {
+            System.err.println("Failed to update run history: " + e.getMessage());
+        }
+    }
+
+    /** Regenerates every day's rollup from the append-only records. */
+    public static void rebuild() throws IOException {
+        locked(() -> {
+            try (Stream<Path> walk = Files.walk(dir().resolve("records"))) {
+                for (Path segment : walk.filter(p -> p.toString().endsWith(".jsonl")).sorted().collect(Collectors.toList())) {
+                    Rollup rollup = new Rollup();
+                    try (Stream<String> lines = Files.lines(segment, StandardCharsets.UTF_8)) {
+                        for (String line : (Iterable<String>) lines::iterator) {
+                            Map<String, Object> record = parse(line);
+                            if (record != null) rollup.add(record);
+                        }
+                    }
+                    String day = segment.getFileName().toString().replace(".jsonl", "");
+                    rollup.write(rollup(LocalDate.parse(day)));
+                }
+            }
+        });
+    }
+
+    /**
+     * Step, p50/p95 over the last -Dhistory.recentDays days, p50/p95 over the rest of the
+     * -Dhistory.trendDays window, change in p95 and failure rate (ms).
+     */
+    public static List<String[]> stepTrendRows() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Rollup recent = Rollup.range(today.minusDays(RECENT_DAYS - 1), today);
+        Rollup earlier = Rollup.range(today.minusDays(TREND_DAYS - 1), today.minusDays(RECENT_DAYS));
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[] { "Step", "Samples", "p50 " + RECENT_DAYS + "d", "p95 " + RECENT_DAYS + "d",
+                "p50 before", "p95 before", "p95 change", "Failure rate" });
+        for (Map.Entry<String, Histogram> e : recent.steps.entrySet()) {
+            Histogram now = e.getValue();
+            Histogram before = earlier.steps.get(e.getKey());
+            long failures = recent.stepFailures.getOrDefault(e.getKey(), 0L);
+            rows.add(new String[] {
+                    e.getKey(),
+                    String.valueOf(now.getTotalCount()),
+                    millis(now.getValueAtPercentile(50)),
+                    millis(now.getValueAtPercentile(95)),
+                    before == null ? "-" : millis(before.getValueAtPercentile(50)),
+                    before == null ? "-" : millis(before.getValueAtPercentile(95)),
+                    before == null ? "-" : change(before.getValueAtPercentile(95), now.getValueAtPercentile(95)),
+                    percent(failures, now.getTotalCount()) });
+        }
+        return rows;
+    }
+
+    /**
+     * Blocking profile, stage and web vitals metric, p75 over the last -Dhistory.recentDays days against
+     * the rest of the -Dhistory.trendDays window (ms; CLS as a score).
+     */
+    public static List<String[]> vitalsTrendRows() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Rollup recent = Rollup.range(today.minusDays(RECENT_DAYS - 1), today);
+        Rollup earlier = Rollup.range(today.minusDays(TREND_DAYS - 1), today.minusDays(RECENT_DAYS));
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[] { "Blocking", "Stage", "Web vital", "Samples", "p75 " + RECENT_DAYS + "d", "p75 before", "p75 change" });
+        for (Map.Entry<String, Histogram> e : recent.vitals.entrySet()) {
+            String[] key = e.getKey().split(" ", 3);
+            if (key.length < 3) continue;
+            boolean cls = "cls".equals(key[2]);
+            Histogram now = e.getValue();
+            Histogram before = earlier.vitals.get(e.getKey());
+            rows.add(new String[] {
+                    key[0],
+                    key[1],
+                    key[2],
+                    String.valueOf(now.getTotalCount()),
+                    vital(now.getValueAtPercentile(75), cls),
+                    before == null ? "-" : vital(before.getValueAtPercentile(75), cls),
+                    before == null ? "-" : change(before.getValueAtPercentile(75), now.getValueAtPercentile(75)) });
+        }
+        return rows;
+    }
+
+    /** Failure signature (cause and locator), failures and share of test runs over the trend window. */
+    public static List<String[]> failureRows() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Rollup window = Rollup.range(today.minusDays(TREND_DAYS - 1), today);
+        long runs = 0;
+        for (long[] t : window.tests.values()) runs += t[0];
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[] { "Failure (" + TREND_DAYS + "d)", "Count", "Share of test runs" });
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(window.failures.entrySet());
+        sorted.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        for (Map.Entry<String, Long> e : sorted.subList(0, Math.min(10, sorted.size()))) {
+            rows.add(new String[] { e.getKey(), String.valueOf(e.getValue()), percent(e.getValue(), runs) });
+        }
+        return rows;
+    }
+
+    /** Test, runs and failure rate over the trend window, flakiest first. */
+    public static List<String[]> testRows() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Rollup window = Rollup.range(today.minusDays(TREND_DAYS - 1), today);
+        List<Map.Entry<String, long[]>> sorted = new ArrayList<>(window.tests.entrySet());
+        sorted.sort((a, b) -> Double.compare((double) b.getValue()[1] / b.getValue()[0], (double) a.getValue()[1] / a.getValue()[0]));
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[] { "Test (" + TREND_DAYS + "d)", "Runs", "Failures", "Failure rate" });
+        for (Map.Entry<String, long[]> e : sorted) {
+            long[] t = e.getValue();
+            rows.add(new String[] { e.getKey(), String.valueOf(t[0]), String.valueOf(t[1]), percent(t[1], t[0]) });
+        }
+        return rows;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && "--rebuild".equals(args[0])) {
+            rebuild();
+            return;
+        }
+        for (List<String[]> table : List.of(stepTrendRows(), vitalsTrendRows(), testRows(), failureRows())) {
+            for (String[] row : table) System.out.println(String.join("\t", row));
+            System.out.println();
+        }
+    }
+
+    static String locatorOf(Throwable error) {
+        String message = String.valueOf(error.getMessage());
+        Matcher m = SELECTOR.matcher(message);
+        if (m.find()) return m.group(1);
+        m = BY_LOCATOR.matcher(message);
+        if (m.find()) return m.group(1).trim();
+        String first = message.split("\\R", 2)[0].replaceAll("\\d+", "#").trim();
+        return first.length() > 80 ? first.substring(0, 80) : first;
+    }
+
+    /** Step histograms, per-test runs/failures, failures per signature and web vitals for a set of days. */
+    private static final class Rollup {
+        final Map<String, Histogram> steps = new TreeMap<>();
+        // "<blocking profile> <stage> <metric>" -> values as WebVitals.trended gives them; stripped and full pages never mix
+        final Map<String, Histogram> vitals = new TreeMap<>();
+        final Map<String, Long> stepFailures = new TreeMap<>();
+        final Map<String, long[]> tests = new TreeMap<>();
+        final Map<String, Long> failures = new TreeMap<>();
+
+        static Rollup range(LocalDate from, LocalDate to) {
+            Rollup out = new Rollup();
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                Path file = rollup(d);
+                if (Files.exists(file)) out.merge(read(file));
+            }
+            return out;
+        }
+
+        @SuppressWarnings("unchecked")
+        void add(Map<String, Object> record) {
+            if ("step".equals(record.get("kind"))) {
+                String step = (String) record.get("step");
+                histogram(step).add(StepMetrics.decode((String) record.get("histogram")));
+                stepFailures.merge(step, ((Number) record.get("failures")).longValue(), Long::sum);
+            } else if ("vitals".equals(record.get("kind"))) {
+                String series = record.getOrDefault("blocking", "unknown") + " " + record.get("stage");
+                WebVitals.trended(record).forEach((metric, v) -> vital(series + " " + metric).recordValue(Math.min(v, MAX_VITAL)));
+            } else if ("test".equals(record.get("kind")) && !"skip".equals(record.get("status"))) {
+                long[] t = tests.computeIfAbsent((String) record.get("test"), k -> new long[2]);
+                t[0]++;
+                // an attempt that was retried failed too, even if the retry passed
+                if ("fail".equals(record.get("status")) || "retried".equals(record.get("status"))) {
+                    t[1]++;
+                    failures.merge(record.getOrDefault("cause", "Unknown") + " " + record.getOrDefault("locator", "-"), 1L, Long::sum);
+                }
+            }
+        }
+
+        void merge(Rollup other) {
+            other.steps.forEach((k, v) -> histogram(k).add(v));
+            other.stepFailures.forEach((k, v) -> stepFailures.merge(k, v, Long::sum));
+            other.tests.forEach((k, v) -> {
+                long[] t = tests.computeIfAbsent(k, x -> new long[2]);
+                t[0] += v[0];
+                t[1] += v[1];
+            });
+            other.failures.forEach((k, v) -> failures.merge(k, v, Long::sum));
+            other.vitals.forEach((k, v) -> vital(k).add(v));
+        }
+
+        private Histogram histogram(String step) {
+            return steps.computeIfAbsent(step, k -> new Histogram(MAX_TRACKABLE_MICROS, 3));
+        }
+
+        private Histogram vital(String key) {
+            return vitals.computeIfAbsent(key, k -> new Histogram(MAX_VITAL, 3));
+        }
+
+        @SuppressWarnings("unchecked")
+        static Rollup read(Path file) {
+            Rollup r = new Rollup();
+            if (!Files.exists(file)) return r;
+            try {
+                Map<String, Object> stored = JSON.toType(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Map.class);
+                ((Map<String, String>) stored.get("steps")).forEach((k, v) -> r.histogram(k).add(StepMetrics.decode(v)));
+                ((Map<String, Number>) stored.get("stepFailures")).forEach((k, v) -> r.stepFailures.put(k, v.longValue()));
+                ((Map<String, List<Number>>) stored.get("tests")).forEach((k, v) -> r.tests.put(k, new long[] { v.get(0).longValue(), v.get(1).longValue() }));
+                ((Map<String, Number>) stored.get("failures")).forEach((k, v) -> r.failures.put(k, v.longValue()));
+                // rollups written before web vitals were collected have none
+                Map<String, String> vitals = (Map<String, String>) stored.get("vitals");
+                if (vitals != null) vitals.forEach((k, v) -> r.vital(k).add(StepMetrics.decode(v)));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Ignoring unreadable run history rollup " + file + ": " + e.getMessage());
+            }
+            return r;
+        }
+
+        void write(Path file) throws IOException {
+            Map<String, Object> out = new LinkedHashMap<>();
+            Map<String, String> encoded = new TreeMap<>();
+            steps.forEach((k, v) -> encoded.put(k, StepMetrics.encode(v)));
+            Map<String, List<Long>> testCounts = new TreeMap<>();
+            tests.forEach((k, v) -> testCounts.put(k, List.of(v[0], v[1])));
+            out.put("steps", encoded);
+            out.put("stepFailures", stepFailures);
+            out.put("tests", testCounts);
+            out.put("failures", failures);
+            Map<String, String> encodedVitals = new TreeMap<>();
+            vitals.forEach((k, v) -> encodedVitals.put(k, StepMetrics.encode(v)));
+            out.put("vitals", encodedVitals);
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.write(tmp, JSON.toJson(out).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private interface LockedWork {
+        void run() throws IOException;
+    }
+
+    // shards and parallel jobs on one machine take turns appending; closing the channel releases the lock
+    private static void locked(LockedWork work) throws IOException {
+        Files.createDirectories(dir());
+        try (FileChannel channel = FileChannel.open(dir().resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.lock();
+            work.run();
+        }
+    }
+
+    private static Path segment(LocalDate day) {
+        return dir().resolve("records").resolve(day.toString().substring(0, 7)).resolve(day + ".jsonl");
+    }
+
+    private static Path rollup(LocalDate day) {
+        return dir().resolve("rollups").resolve(day + ".json");
+    }
+
+    private static Map<String, Object> stamp(Map<String, Object> record, String run, long ts) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("ts", ts);
+        out.put("run", run);
+        out.putAll(record);
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parse(String line) {
+        if (line.isBlank()) return null;
+        try {
+            return JSON.toType(line, Map.class);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String millis(long micros) {
+        return String.valueOf(micros / 1000);
+    }
+
+    private static String vital(long value, boolean cls) {
+        return cls ? String.format(Locale.ROOT, "%.3f", value / 1000.0) : String.valueOf(value);
+    }
+
+    private static String percent(long part, long whole) {
+        return whole == 0 ? "-" : String.format(Locale.ROOT, "%.1f%%", 100.0 * part / whole);
+    }
+
+    private static String change(long before, long now) {
+        return before == 0 ? "-" : String.format(Locale.ROOT, "%+.0f%%", 100.0 * (now - before) / before);
+    }
+}
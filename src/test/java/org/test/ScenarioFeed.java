@@ -0,0 +1,132 @@
+package org.test;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonInput;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads quote scenarios one at a time from a file, so a soak run over a large file
+ * never holds more than the scenarios currently in flight.
+ *
+ * Formats, by extension: .csv with a header row, .json holding an array of objects,
+ * and .jsonl with one object per line. Column and key names are those of
+ * {@link QuoteScenario#fromFields}.
+ */
+public final class ScenarioFeed implements Iterator<QuoteScenario>, Closeable {
+
+    private static final Json JSON = new Json();
+
+    private final BufferedReader reader;
+    private final String format;
+    private List<String> header;
+    private JsonInput array;
+    private QuoteScenario next;
+
+    private ScenarioFeed(BufferedReader reader, String format) {
+        this.reader = reader;
+        this.format = format;
+    }
+
+    public static ScenarioFeed open(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        String format = name.endsWith(".csv") ? "csv" : name.endsWith(".jsonl") ? "jsonl" : name.endsWith(".json") ? "json" : null;
+        if (format == null) throw new IllegalArgumentException("Unsupported scenario file (csv, json or jsonl): " + file);
+        return new ScenarioFeed(Files.newBufferedReader(file, StandardCharsets.UTF_8), format);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public QuoteScenario next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        QuoteScenario scenario = next;
+        next = null;
+        return scenario;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (array != null) array.close();
+        reader.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private QuoteScenario read() throws IOException {
+        switch (format) {
+            case "json":
+                if (array == null) {
+                    array = JSON.newInput(reader);
+                    array.beginArray();
+                }
+                if (!array.hasNext()) return null;
+                return QuoteScenario.fromFields(array.read(Map.class));
+            case "jsonl":
+                for (String line; (line = reader.readLine()) != null; ) {
+                    if (!line.isBlank()) return QuoteScenario.fromFields(JSON.toType(line, Map.class));
+                }
+                return null;
+            default:
+                for (String line; (line = reader.readLine()) != null; ) {
+                    if (line.isBlank() || line.startsWith("#")) continue;
+                    List<String> cells = splitCsv(line);
+                    if (header == null) {
+                        header = new ArrayList<>();
+                        for (String cell : cells) header.add(cell.trim().toLowerCase(Locale.ROOT));
+                        continue;
+                    }
+                    Map<String, String> fields = new LinkedHashMap<>();
+                    for (int i = 0; i < header.size() && i < cells.size(); i++) fields.put(header.get(i), cells.get(i));
+                    return QuoteScenario.fromFields(fields);
+                }
+                return null;
+        }
+    }
+
+    // RFC 4180 quoting, enough for addresses with commas in them
+    private static List<String> splitCsv(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') { cell.append('"'); i++; }
+                else if (c == '"') quoted = false;
+                else cell.append(c);
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+}
@@ -0,0 +1,195 @@
+package org.test;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.w3c.dom.Node;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the last few seconds of each browser session as DevTools screencast frames
+ * in a bounded in-memory ring buffer, and turns them into an animated GIF only when
+ * a test fails. A passing test costs the frame transfer and nothing else: no disk
+ * writes, no encoding, at most -Dscreencast.maxMb (default 16) of JPEG frames held.
+ *
+ * -Dscreencast.seconds sets the window (default 10, 0 switches recording off).
+ */
+public final class Screencast {
+
+    private static final int SECONDS = Integer.getInteger("screencast.seconds", 10);
+    private static final long MAX_BYTES = Long.getLong("screencast.maxMb", 16L) * 1024 * 1024;
+    private static final Map<WebDriver, Screencast> RECORDERS = new ConcurrentHashMap<>();
+
+    private static final class Frame {
+        final byte[] jpeg;
+        final long atMillis;
+
+        Frame(byte[] jpeg, long atMillis) {
+            this.jpeg = jpeg;
+            this.atMillis = atMillis;
+        }
+    }
+
+    private final DevTools devTools;
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+    private long bytes;
+    private volatile boolean recording = true;
+
+    private Screencast(DevTools devTools) {
+        this.devTools = devTools;
+    }
+
+    /** Starts recording a freshly launched session. */
+    @SuppressWarnings("unchecked")
+    static void attach(WebDriver driver) {
+        if (SECONDS <= 0 || !(driver instanceof HasDevTools)) return;
+        try {
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            Screencast recorder = new Screencast(devTools);
+            devTools.addListener(new Event<>("Page.screencastFrame", input -> (Map<String, Object>) input.read(Map.class)),
+                    recorder::onFrame);
+            Map<String, Object> params = new HashMap<>();
+            params.put("format", "jpeg");
+            params.put("quality", 40);
+            params.put("maxWidth", 960);
+            params.put("maxHeight", 960);
+            devTools.send(new Command<>("Page.startScreencast", params));
+            RECORDERS.put(driver, recorder);
+        } catch (RuntimeException e) {
+            System.err.println("Screencast unavailable, continuing without it: " + e.getMessage());
+        }
+    }
+
+    /** Drops the frames of the previous lease, so a failure only shows its own test. */
+    static void clear(WebDriver driver) {
+        Screencast recorder = RECORDERS.get(driver);
+        if (recorder == null) return;
+        synchronized (recorder) {
+            recorder.frames.clear();
+            recorder.bytes = 0;
+        }
+    }
+
+    static void detach(WebDriver driver) {
+        Screencast recorder = RECORDERS.remove(driver);
+        if (recorder == null) return;
+        recorder.recording = false;
+        try { recorder.devTools.send(new Command<>("Page.stopScreencast", new HashMap<>())); } catch (RuntimeException ignored) {}
+    }
+
+    /**
+     * Encodes the buffered frames as an animated GIF in the background and stores it
+     * under name. Completes with the stored path, or null when nothing was recorded.
+     */
+    public static CompletableFuture<String> saveClip(WebDriver driver, String name) {
+        Screencast recorder = driver == null ? null : RECORDERS.get(driver);
+        if (recorder == null) return CompletableFuture.completedFuture(null);
+        List<Frame> clip;
+        synchronized (recorder) {
+            clip = new ArrayList<>(recorder.frames);
+        }
+        if (clip.isEmpty()) return CompletableFuture.completedFuture(null);
+        return ScreenshotService.store(name, "gif", () -> encodeGif(clip));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onFrame(Map<String, Object> event) {
+        if (!recording) return;
+        // Chrome stops sending frames until each one is acknowledged
+        Map<String, Object> ack = new HashMap<>();
+        ack.put("sessionId", event.get("sessionId"));
+        try { devTools.send(new Command<>("Page.screencastFrameAck", ack)); } catch (RuntimeException ignored) {}
+
+        Map<String, Object> metadata = (Map<String, Object>) event.get("metadata");
+        Object timestamp = metadata == null ? null : metadata.get("timestamp");
+        long at = timestamp instanceof Number ? (long) (((Number) timestamp).doubleValue() * 1000) : System.currentTimeMillis();
+        Frame frame = new Frame(Base64.getDecoder().decode((String) event.get("data")), at);
+        synchronized (this) {
+            frames.addLast(frame);
+            bytes += frame.jpeg.length;
+            while (!frames.isEmpty() && (bytes > MAX_BYTES || frame.atMillis - frames.peekFirst().atMillis > SECONDS * 1000L)) {
+                bytes -= frames.removeFirst().jpeg.length;
+            }
+        }
+    }
+
+    private static byte[] encodeGif(List<Frame> clip) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.prepareWriteSequence(null);
+            for (int i = 0; i < clip.size(); i++) {
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(clip.get(i).jpeg));
+                if (image == null) continue;
+                // each frame stays up until the next one arrived; the last one for a second
+                long shownMillis = i + 1 < clip.size() ? clip.get(i + 1).atMillis - clip.get(i).atMillis : 1000;
+                writer.writeToSequence(new IIOImage(image, null, frameMetadata(writer, image, shownMillis, i == 0)), null);
+            }
+            writer.endWriteSequence();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static IIOMetadata frameMetadata(ImageWriter writer, BufferedImage image, long shownMillis, boolean first) throws IOException {
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), param);
+        String format = metadata.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+        IIOMetadataNode control = child(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("delayTime", String.valueOf(Math.max(2, Math.min(65535, shownMillis / 10))));
+        control.setAttribute("transparentColorIndex", "0");
+
+        if (first) {
+            // loop forever
+            IIOMetadataNode app = new IIOMetadataNode("ApplicationExtension");
+            app.setAttribute("applicationID", "NETSCAPE");
+            app.setAttribute("authenticationCode", "2.0");
+            app.setUserObject(new byte[] { 1, 0, 0 });
+            child(root, "ApplicationExtensions").appendChild(app);
+        }
+        metadata.setFromTree(format, root);
+        return metadata;
+    }
+
+    private static IIOMetadataNode child(IIOMetadataNode root, String name) {
+        for (Node n = root.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n.getNodeName().equalsIgnoreCase(name)) return (IIOMetadataNode) n;
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        root.appendChild(node);
+        return node;
+    }
+}
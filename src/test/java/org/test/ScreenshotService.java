@@ -0,0 +1,229 @@
+package org.test;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Full-page screenshots taken through DevTools {@code Page.captureScreenshot} (beyond
+ * the viewport, no scrolling), one -Dscreenshots.tileHeight CSS px strip at a time
+ * (default 2048). The test thread only captures the strips and spools them to disk;
+ * a background executor decodes them one by one into a streaming PNG encoder
+ * ({@link PngStreamWriter}) and stores the result in the {@link ArtifactStore}, so the
+ * heap used per capture is bounded by one strip however long the page is.
+ *
+ * A thumbnail -Dscreenshots.thumbnailWidth px wide (default 320, 0 turns it off) is
+ * built along the way for the report; see {@link #thumbnail}.
+ */
+public final class ScreenshotService {
+
+    private static final ExecutorService WRITER = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "screenshot-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final Set<CompletableFuture<?>> PENDING = ConcurrentHashMap.newKeySet();
+    private static final Map<String, String> THUMBNAILS = new ConcurrentHashMap<>();
+
+    private static final int TILE_HEIGHT = Integer.getInteger("screenshots.tileHeight", 2048);
+    private static final int THUMBNAIL_WIDTH = Integer.getInteger("screenshots.thumbnailWidth", 320);
+
+    private ScreenshotService() {}
+
+    /**
+     * Captures the page now and stores it in the background under {@code name}. The future
+     * completes with the stored object's path (relative to test-output) once it exists, or
+     * with null if the capture or the write failed.
+     */
+    public static CompletableFuture<String> capture(WebDriver driver, String name) {
+        if (driver == null) return CompletableFuture.completedFuture(null);
+        if (!(driver instanceof ChromiumDriver)) {
+            try {
+                String base64 = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+                return store(name, "png", () -> Base64.getMimeDecoder().decode(base64));
+            } catch (Exception e) {
+                System.err.println("Screenshot capture failed: " + e.getMessage());
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+        final List<Path> tiles;
+        try {
+            tiles = grabTiles((ChromiumDriver) driver);
+        } catch (Exception e) {
+            System.err.println("Screenshot capture failed: " + e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        return submit(() -> assemble(name, tiles));
+    }
+
+    /** The report thumbnail stored alongside a capture, or null if there is none. */
+    public static String thumbnail(String path) {
+        return path == null ? null : THUMBNAILS.get(path);
+    }
+
+    /** Encodes on the writer threads and stores the result; tracked by {@link #awaitPending}. */
+    static CompletableFuture<String> store(String name, String ext, Supplier<byte[]> encode) {
+        return submit(() -> ArtifactStore.put(name, encode.get(), ext));
+    }
+
+    /** Runs image work on the writer threads; tracked by {@link #awaitPending} like the captures. */
+    static <T> CompletableFuture<T> submit(Callable<T> write) {
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+            try {
+                return write.call();
+            } catch (Exception e) {
+                System.err.println("Screenshot write failed: " + e.getMessage());
+                return null;
+            }
+        }, WRITER);
+        return track(future);
+    }
+
+    /** Makes {@link #awaitPending} wait for stage as well, e.g. the callback that puts a capture on its test. */
+    static <T> CompletableFuture<T> track(CompletableFuture<T> stage) {
+        PENDING.add(stage);
+        stage.whenComplete((result, error) -> PENDING.remove(stage));
+        return stage;
+    }
+
+    /** Blocks until every queued screenshot has been written, or the timeout passes. */
+    public static void awaitPending(Duration timeout) {
+        CompletableFuture<?>[] all = PENDING.toArray(new CompletableFuture<?>[0]);
+        try {
+            CompletableFuture.allOf(all).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.err.println(PENDING.size() + " screenshot(s) still pending after " + timeout.getSeconds() + "s");
+        } catch (Exception e) {
+            System.err.println("Waiting for screenshots failed: " + e.getMessage());
+        }
+    }
+
+    // each strip is decoded from base64 and written out before the next one is taken
+    @SuppressWarnings("unchecked")
+    private static List<Path> grabTiles(ChromiumDriver chromium) throws IOException {
+        Map<String, Object> metrics = chromium.executeCdpCommand("Page.getLayoutMetrics", new HashMap<>());
+        Map<String, Object> size = (Map<String, Object>) metrics.get("cssContentSize");
+        double width = ((Number) size.get("width")).doubleValue();
+        double height = ((Number) size.get("height")).doubleValue();
+
+        List<Path> tiles = new ArrayList<>();
+        try {
+            for (double top = 0; top < height; top += TILE_HEIGHT) {
+                Map<String, Object> clip = new HashMap<>();
+                clip.put("x", 0);
+                clip.put("y", top);
+                clip.put("width", width);
+                clip.put("height", Math.min(TILE_HEIGHT, height - top));
+                clip.put("scale", 1);
+
+                Map<String, Object> params = new HashMap<>();
+                params.put("format", "png");
+                params.put("captureBeyondViewport", true);
+                params.put("clip", clip);
+                String data = (String) chromium.executeCdpCommand("Page.captureScreenshot", params).get("data");
+                Path tile = Files.createTempFile("screenshot-tile-", ".png");
+                tiles.add(tile);
+                Files.write(tile, Base64.getMimeDecoder().decode(data));
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteAll(tiles);
+            throw e;
+        }
+        return tiles;
+    }
+
+    // sizes come from the strips' PNG headers, so the output header is written before any strip is decoded
+    private static String assemble(String name, List<Path> tiles) throws IOException {
+        Path png = null;
+        try {
+            int width = 0, height = 0;
+            for (Path tile : tiles) {
+                int[] size = pngSize(tile);
+                width = Math.max(width, size[0]);
+                height += size[1];
+            }
+            BufferedImage thumb = null;
+            Graphics2D g = null;
+            double scale = THUMBNAIL_WIDTH > 0 && width > 0 ? Math.min(1.0, (double) THUMBNAIL_WIDTH / width) : 0;
+            if (scale > 0) {
+                thumb = new BufferedImage((int) Math.round(width * scale), Math.max(1, (int) Math.round(height * scale)), BufferedImage.TYPE_INT_RGB);
+                g = thumb.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, thumb.getWidth(), thumb.getHeight());
+            }
+            png = ArtifactStore.scratch(".png");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(png));
+                 PngStreamWriter writer = new PngStreamWriter(out, width, height)) {
+                int top = 0;
+                for (Path tile : tiles) {
+                    BufferedImage image = ImageIO.read(tile.toFile());
+                    Files.delete(tile);
+                    if (image == null) throw new IOException("Unreadable screenshot strip");
+                    writer.writeRows(image);
+                    if (g != null) {
+                        int y = (int) Math.round(top * scale);
+                        int h = (int) Math.round((top + image.getHeight()) * scale) - y;
+                        if (h > 0) g.drawImage(image, 0, y, (int) Math.round(image.getWidth() * scale), h, null);
+                    }
+                    top += image.getHeight();
+                }
+            }
+            String path = ArtifactStore.putFile(name, png, "png");
+            png = null;
+            if (thumb != null) {
+                g.dispose();
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ImageIO.write(thumb, "png", bytes);
+                THUMBNAILS.put(path, ArtifactStore.put(name.replaceAll("\\.png$", "") + "_thumb.png", bytes.toByteArray(), "png"));
+            }
+            return path;
+        } finally {
+            deleteAll(tiles);
+            if (png != null) Files.deleteIfExists(png);
+        }
+    }
+
+    // width and height from the IHDR chunk, which follows the 8-byte signature and chunk header
+    private static int[] pngSize(Path png) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(png))) {
+            in.skipBytes(16);
+            return new int[] { in.readInt(), in.readInt() };
+        }
+    }
+
+    private static void deleteAll(List<Path> files) {
+        for (Path f : files) {
+            try { Files.deleteIfExists(f); } catch (IOException ignored) {}
+        }
+    }
+}
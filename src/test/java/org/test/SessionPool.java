@@ -0,0 +1,212 @@
+package org.test;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumDriver;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pre-launched headless Chrome sessions that are recycled instead of restarted.
+ * A returned session has its extra windows closed and its cookies and storage
+ * wiped; it is retired once it fails a health check or reaches the reuse limit.
+ *
+ * Tuning: -Dsession.pool.size (sessions kept warm, default 1) and
+ * -Dsession.maxReuse (leases before a session is retired, default 20).
+ *
+ * Sessions get their own Chrome profile directory from {@link ChromeProfiles} in a
+ * sharded run or when profiles are cloned from a warmed template.
+ */
+public final class SessionPool {
+
+    private static final int SIZE = Integer.getInteger("session.pool.size", 1);
+    private static final int MAX_REUSE = Integer.getInteger("session.maxReuse", 20);
+    private static final long LAUNCH_WAIT_SECONDS = 60;
+
+    private static final BlockingQueue<PooledSession> IDLE = new LinkedBlockingQueue<>();
+    private static final Map<WebDriver, PooledSession> LEASED = new ConcurrentHashMap<>();
+    private static final Map<WebDriver, Path> PROFILES = new ConcurrentHashMap<>();
+    private static final AtomicInteger LAUNCHING = new AtomicInteger();
+    private static final ExecutorService LAUNCHER = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "session-launcher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SessionPool::shutdown, "session-pool-shutdown"));
+    }
+
+    private static final class PooledSession {
+        final WebDriver driver;
+        int uses;
+
+        PooledSession(WebDriver driver) { this.driver = driver; }
+    }
+
+    private SessionPool() {}
+
+    /** Starts launching sessions in the background until the pool holds its configured size. */
+    public static void warmUp() {
+        int missing = SIZE - IDLE.size() - LEASED.size() - LAUNCHING.get();
+        for (int i = 0; i < missing; i++) launchAsync();
+    }
+
+    /** Hands out a healthy warm session, waiting for a launch in progress before starting a new one. */
+    public static WebDriver borrow() {
+        PooledSession session;
+        while ((session = IDLE.poll()) != null) {
+            if (healthy(session)) return lease(session);
+            retire(session);
+        }
+        if (LAUNCHING.get() > 0) {
+            try {
+                session = IDLE.poll(LAUNCH_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (session != null && healthy(session)) return lease(session);
+            if (session != null) retire(session);
+        }
+        return lease(new PooledSession(launch()));
+    }
+
+    /** Resets the session and puts it back for the next borrower, or retires it. */
+    public static void giveBack(WebDriver driver) {
+        PooledSession session = LEASED.remove(driver);
+        if (session == null) {
+            driver.quit();
+            return;
+        }
+        if (session.uses >= MAX_REUSE || !reset(session)) {
+            retire(session);
+            warmUp();
+            return;
+        }
+        IDLE.offer(session);
+    }
+
+    /** Quits every idle and leased session. */
+    public static void shutdown() {
+        List<PooledSession> all = new ArrayList<>(LEASED.values());
+        LEASED.clear();
+        IDLE.drainTo(all);
+        for (PooledSession session : all) retire(session);
+    }
+
+    static ChromeOptions chromeOptions() {
+        ChromeOptions options = new ChromeOptions();
+        // Recommended stability flags (works locally & in CI)
+        options.addArguments("--headless=new");
+        options.addArguments("--disable-gpu");
+        options.addArguments("--no-sandbox");
+        options.addArguments("--disable-dev-shm-usage");
+        options.addArguments("--window-size=1920,1080");
+        options.addArguments("--remote-allow-origins=*");
+        return options;
+    }
+
+    private static WebDriver launch() {
+        ChromeOptions options = chromeOptions();
+        Path profile = ChromeProfiles.forSession();
+        if (profile != null) options.addArguments("--user-data-dir=" + profile.toAbsolutePath());
+        WebDriver driver;
+        try {
+            driver = new ChromeDriver(options);
+        } catch (RuntimeException e) {
+            ChromeProfiles.delete(profile);
+            throw e;
+        }
+        if (profile != null) PROFILES.put(driver, profile);
+        NetworkRouting.install(driver);
+        Screencast.attach(driver);
+        ReadinessTracker.attach(driver);
+        WebVitals.attach(driver);
+        return driver;
+    }
+
+    private static void launchAsync() {
+        LAUNCHING.incrementAndGet();
+        LAUNCHER.submit(() -> {
+            try {
+                IDLE.offer(new PooledSession(launch()));
+            } catch (Exception e) {
+                System.err.println("Warm session launch failed: " + e.getMessage());
+            } finally {
+                LAUNCHING.decrementAndGet();
+            }
+        });
+    }
+
+    private static WebDriver lease(PooledSession session) {
+        session.uses++;
+        Screencast.clear(session.driver);
+        LEASED.put(session.driver, session);
+        return session.driver;
+    }
+
+    private static boolean healthy(PooledSession session) {
+        try {
+            Object pong = ((JavascriptExecutor) session.driver).executeScript("return 1;");
+            return pong != null && !session.driver.getWindowHandles().isEmpty();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static boolean reset(PooledSession session) {
+        WebDriver driver = session.driver;
+        try {
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            for (int i = 1; i < handles.size(); i++) {
+                driver.switchTo().window(handles.get(i));
+                driver.close();
+            }
+            driver.switchTo().window(handles.get(0));
+            try {
+                ((JavascriptExecutor) driver).executeScript("try{localStorage.clear();sessionStorage.clear();}catch(e){}");
+            } catch (Exception ignored) {}
+            if (driver instanceof ChromiumDriver) {
+                ChromiumDriver chromium = (ChromiumDriver) driver;
+                Object origin = ((JavascriptExecutor) driver).executeScript("return location.origin;");
+                if (origin instanceof String && ((String) origin).startsWith("http")) {
+                    Map<String, Object> params = new HashMap<>();
+                    params.put("origin", origin);
+                    params.put("storageTypes", "all");
+                    chromium.executeCdpCommand("Storage.clearDataForOrigin", params);
+                }
+                chromium.executeCdpCommand("Network.clearBrowserCookies", new HashMap<>());
+            } else {
+                driver.manage().deleteAllCookies();
+            }
+            driver.get("about:blank");
+            return healthy(session);
+        } catch (Exception e) {
+            System.err.println("Session reset failed, retiring it: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void retire(PooledSession session) {
+        NetworkRouting.remove(session.driver);
+        Screencast.detach(session.driver);
+        ReadinessTracker.detach(session.driver);
+        try { session.driver.quit(); } catch (Exception e) {
+            System.err.println("Failed to quit browser session: " + e.getMessage());
+        }
+        ChromeProfiles.delete(PROFILES.remove(session.driver));
+    }
+}
@@ -0,0 +1,89 @@
+package org.test;
+
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This JVM's slice of the suite when it runs as one of several shards:
+ * -Dshard.index (0-based) of -Dshard.count (default 1, i.e. not sharded).
+ *
+ * Scenario sources (data providers, the throughput feed) keep the rows whose ordinal
+ * {@link #owns}; as a TestNG method interceptor it spreads the remaining test methods
+ * the same way. Methods that slice their own rows without a data provider go in the
+ * {@link #SLICED} group. A sharded run writes under test-output/shard-&lt;index&gt; so
+ * shards never share files (-Doutput.dir moves test-output, e.g. for a separate pass
+ * that must not overwrite the merged report); {@link ShardMerge} combines them afterwards. Methods in the
+ * {@link ThroughputTest#GROUP} group are left out of the run entirely unless throughput
+ * mode is on.
+ */
+public final class Shard implements IMethodInterceptor {
+
+    public static final String SLICED = "sliced";
+
+    private static final int COUNT = Math.max(1, Integer.getInteger("shard.count", 1));
+    private static final int INDEX = Integer.getInteger("shard.index", 0);
+
+    static {
+        if (INDEX < 0 || INDEX >= COUNT) {
+            throw new IllegalStateException("shard.index " + INDEX + " is outside 0.." + (COUNT - 1));
+        }
+    }
+
+    public static int index() {
+        return INDEX;
+    }
+
+    public static int count() {
+        return COUNT;
+    }
+
+    public static boolean isSharded() {
+        return COUNT > 1;
+    }
+
+    /** True when the row at this position of a scenario list belongs to this shard. */
+    public static boolean owns(long ordinal) {
+        return ordinal % COUNT == INDEX;
+    }
+
+    /** test-output, or test-output/shard-&lt;index&gt; in a sharded run. */
+    public static Path outputDir() {
+        Path root = Paths.get(System.getProperty("output.dir", "test-output"));
+        return isSharded() ? root.resolve("shard-" + INDEX) : root;
+    }
+
+    /** e.g. "2/4", or "off". */
+    public static String summary() {
+        return isSharded() ? (INDEX + 1) + "/" + COUNT : "off";
+    }
+
+    // methods that slice their own rows run on every shard
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        if (!ThroughputTest.enabled()) {
+            List<IMethodInstance> selected = new ArrayList<>();
+            for (IMethodInstance m : methods) {
+                if (!Arrays.asList(m.getMethod().getGroups()).contains(ThroughputTest.GROUP)) selected.add(m);
+            }
+            methods = selected;
+        }
+        if (!isSharded()) return methods;
+        List<IMethodInstance> plain = new ArrayList<>();
+        List<IMethodInstance> kept = new ArrayList<>();
+        for (IMethodInstance m : methods) {
+            if (m.getMethod().isDataDriven() || Arrays.asList(m.getMethod().getGroups()).contains(SLICED)) kept.add(m);
+            else plain.add(m);
+        }
+        plain.sort(Comparator.comparing(m -> m.getMethod().getQualifiedName()));
+        for (int i = 0; i < plain.size(); i++) if (owns(i)) kept.add(plain.get(i));
+        return kept;
+    }
+}
@@ -0,0 +1,176 @@
+package org.test;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.configuration.Theme;
+import org.openqa.selenium.json.Json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Combines the output of a sharded run (test-output/shard-*) into test-output:
+ * artifacts and their index, one ExtentReport.html rebuilt from the shards' JSON
+ * archives, step metrics and wait timeouts merged from their histograms, and the event streams
+ * concatenated and rendered as one EventReport.html. The report header (quote target,
+ * blocking profile, ...) comes from the run-info.json each shard writes.
+ *
+ * {@code java -cp <test classpath> org.test.ShardMerge [test-output]}
+ */
+public final class ShardMerge {
+
+    static final String RUN_INFO = "run-info.json";
+
+    private static final Json JSON = new Json();
+    private static final String[] SHARD_TESTS = { "Step latency", "Wait timeouts", "Trends" };
+    private static final List<Map<String, Object>> WAITS = new ArrayList<>();
+
+    private ShardMerge() {}
+
+    public static void main(String[] args) throws IOException {
+        Path root = Paths.get(args.length > 0 ? args[0] : "test-output");
+        List<Path> shards = shards(root);
+        if (shards.isEmpty()) {
+            System.err.println("No shard output under " + root);
+            System.exit(1);
+        }
+        System.out.println("Merging " + shards.size() + " shards into " + root);
+        mergeArtifacts(root, shards);
+        mergeStepMetrics(root, shards);
+        mergeExtent(root, shards);
+        mergeEvents(root, shards);
+    }
+
+    static List<Path> shards(Path root) throws IOException {
+        if (!Files.isDirectory(root)) return new ArrayList<>();
+        try (Stream<Path> list = Files.list(root)) {
+            return list.filter(p -> Files.isDirectory(p) && p.getFileName().toString().startsWith("shard-"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // objects are content-addressed, so a copy that already exists is the same file;
+    // the index is rebuilt from the shards', so merging twice does not repeat lines
+    private static void mergeArtifacts(Path root, List<Path> shards) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Path shard : shards) {
+            Path shardIndex = shard.resolve("artifacts").resolve("index.tsv");
+            if (Files.exists(shardIndex)) lines.addAll(Files.readAllLines(shardIndex, StandardCharsets.UTF_8));
+            Path objects = shard.resolve("artifacts").resolve("objects");
+            if (!Files.isDirectory(objects)) continue;
+            try (Stream<Path> walk = Files.walk(objects)) {
+                for (Path object : walk.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                    Path target = root.resolve(shard.relativize(object));
+                    if (Files.exists(target)) continue;
+                    Files.createDirectories(target.getParent());
+                    Files.copy(object, target);
+                }
+            }
+        }
+        if (lines.isEmpty()) return;
+        Path index = root.resolve("artifacts").resolve("index.tsv");
+        Files.createDirectories(index.getParent());
+        Files.write(index, lines, StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void mergeStepMetrics(Path root, List<Path> shards) throws IOException {
+        for (Path shard : shards) {
+            for (Path file : files(shard.resolve("metrics"), ".json")) {
+                String name = file.getFileName().toString();
+                try {
+                    Map<String, Object> dump = JSON.toType(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Map.class);
+                    if (name.startsWith("step-metrics-")) StepMetrics.merge(dump);
+                    else if (name.startsWith("wait-timeouts-")) WAITS.add(dump);
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping unreadable metrics " + file + ": " + e.getMessage());
+                }
+            }
+        }
+        StepMetrics.writeJson(root.resolve("metrics").resolve("step-metrics-merged.json"));
+    }
+
+    private static void mergeExtent(Path root, List<Path> shards) throws IOException {
+        ExtentReports extent = new ExtentReports();
+        for (Path shard : shards) {
+            Path archive = shard.resolve("extent.json");
+            if (!Files.exists(archive)) {
+                System.err.println("No Extent archive in " + shard);
+                continue;
+            }
+            extent.createDomainFromJsonArchive(archive.toFile());
+            // per-shard summaries are replaced by the merged ones below
+            for (String name : SHARD_TESTS) extent.removeTest(name);
+        }
+        ExtentSparkReporter reporter = new ExtentSparkReporter(root.resolve("ExtentReport.html").toString());
+        reporter.config().setDocumentTitle("Automation Test Report");
+        reporter.config().setReportName("Regression Suite (" + shards.size() + " shards)");
+        reporter.config().setTheme(Theme.DARK);
+        extent.attachReporter(reporter);
+        extent.setSystemInfo("Shards", String.valueOf(shards.size()));
+        runInfo(shards).forEach(extent::setSystemInfo);
+        List<String[]> rows = StepMetrics.summaryRows();
+        if (rows.size() > 1) extent.createTest("Step latency").info(MarkupHelper.createTable(rows.toArray(new String[0][])));
+        List<String[]> waits = TimeoutPolicy.mergedRows(WAITS);
+        if (waits.size() > 1) extent.createTest("Wait timeouts").info(MarkupHelper.createTable(waits.toArray(new String[0][])));
+        // every shard has already added itself to the run history
+        ExtentTest trends = extent.createTest("Trends");
+        for (List<String[]> table : Arrays.asList(RunHistoryStore.stepTrendRows(), RunHistoryStore.vitalsTrendRows(), RunHistoryStore.testRows(), RunHistoryStore.failureRows())) {
+            if (table.size() > 1) trends.info(MarkupHelper.createTable(table.toArray(new String[0][])));
+        }
+        extent.flush();
+    }
+
+    // the first shard's report header, minus its shard number
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> runInfo(List<Path> shards) throws IOException {
+        for (Path shard : shards) {
+            Path file = shard.resolve(RUN_INFO);
+            if (!Files.exists(file)) continue;
+            Map<String, String> info = JSON.toType(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Map.class);
+            info.remove("Shard");
+            return info;
+        }
+        System.err.println("No " + RUN_INFO + " in any shard, the report header only shows the shard count");
+        return new HashMap<>();
+    }
+
+    private static void mergeEvents(Path root, List<Path> shards) throws IOException {
+        Path merged = root.resolve("events").resolve("events-merged.jsonl");
+        Files.createDirectories(merged.getParent());
+        try (BufferedWriter out = Files.newBufferedWriter(merged, StandardCharsets.UTF_8)) {
+            for (Path shard : shards) {
+                for (Path file : files(shard.resolve("events"), ".jsonl")) {
+                    try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+                        for (String line : (Iterable<String>) lines::iterator) {
+                            out.write(line);
+                            out.newLine();
+                        }
+                    }
+                }
+            }
+        }
+        EventReport.render(merged, root.resolve("EventReport.html"));
+    }
+
+    private static List<Path> files(Path dir, String suffix) throws IOException {
+        if (!Files.isDirectory(dir)) return new ArrayList<>();
+        try (Stream<Path> list = Files.list(dir)) {
+            return list.filter(p -> p.getFileName().toString().endsWith(suffix)).sorted().collect(Collectors.toList());
+        }
+    }
+}
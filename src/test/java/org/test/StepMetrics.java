@@ -0,0 +1,193 @@
+package org.test;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+
+/**
+ * Latency of each funnel step, recorded into HDR histograms (microseconds).
+ * Time spent blocked in waits is tracked separately from the rest of the step
+ * ("action" time), and explicit retries are counted.
+ */
+public final class StepMetrics {
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private static final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Deque<Frame>> ACTIVE = ThreadLocal.withInitial(ArrayDeque::new);
+
+    static final class Stats {
+        final Histogram total = new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+        final Histogram waits = new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+        final Histogram actions = new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+        final LongAdder failures = new LongAdder();
+        final LongAdder retries = new LongAdder();
+    }
+
+    private static final class Frame {
+        final Stats stats;
+        long waitNanos;
+
+        Frame(Stats stats) { this.stats = stats; }
+    }
+
+    private StepMetrics() {}
+
+    public static void time(String step, Runnable body) {
+        time(step, () -> { body.run(); return null; });
+    }
+
+    /** Runs a step and records its duration, split into wait and action time. */
+    public static <T> T time(String step, Supplier<T> body) {
+        Stats stats = STATS.computeIfAbsent(step, k -> new Stats());
+        Frame frame = new Frame(stats);
+        ACTIVE.get().push(frame);
+        long start = System.nanoTime();
+        try {
+            return body.get();
+        } catch (RuntimeException | Error e) {
+            stats.failures.increment();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            ACTIVE.get().pop();
+            record(stats.total, elapsed);
+            record(stats.waits, frame.waitNanos);
+            record(stats.actions, Math.max(0, elapsed - frame.waitNanos));
+        }
+    }
+
+    /** Runs a blocking wait and books its duration as wait time of every step in progress on this thread. */
+    public static <T> T waiting(Supplier<T> wait) {
+        long start = System.nanoTime();
+        try {
+            return wait.get();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            for (Frame frame : ACTIVE.get()) frame.waitNanos += elapsed;
+        }
+    }
+
+    /** Counts a retry against the innermost step in progress on this thread. */
+    public static void retry() {
+        Frame frame = ACTIVE.get().peek();
+        if (frame != null) frame.stats.retries.increment();
+    }
+
+    /** Rows of step, count, failures, retries, p50/p95/max total and p95 wait/action, in milliseconds. */
+    public static List<String[]> summaryRows() {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[] { "Step", "Count", "Failures", "Retries", "p50 ms", "p95 ms", "max ms", "p95 wait ms", "p95 action ms" });
+        for (Map.Entry<String, Stats> e : STATS.entrySet()) {
+            Stats s = e.getValue();
+            rows.add(new String[] {
+                    e.getKey(),
+                    String.valueOf(s.total.getTotalCount()),
+                    String.valueOf(s.failures.sum()),
+                    String.valueOf(s.retries.sum()),
+                    millis(s.total.getValueAtPercentile(50)),
+                    millis(s.total.getValueAtPercentile(95)),
+                    millis(s.total.getMaxValue()),
+                    millis(s.waits.getValueAtPercentile(95)),
+                    millis(s.actions.getValueAtPercentile(95))
+            });
+        }
+        return rows;
+    }
+
+    /** Percentiles plus the compressed histograms themselves, so runs can be merged later. */
+    public static Map<String, Object> toMap() {
+        Map<String, Object> steps = new LinkedHashMap<>();
+        for (Map.Entry<String, Stats> e : STATS.entrySet()) {
+            Stats s = e.getValue();
+            Map<String, Object> step = new LinkedHashMap<>();
+            step.put("count", s.total.getTotalCount());
+            step.put("failures", s.failures.sum());
+            step.put("retries", s.retries.sum());
+            step.put("totalMicros", percentiles(s.total));
+            step.put("waitMicros", percentiles(s.waits));
+            step.put("actionMicros", percentiles(s.actions));
+            step.put("histograms", encoded(s));
+            steps.put(e.getKey(), step);
+        }
+        return steps;
+    }
+
+    /** Adds counts and histograms from a {@link #toMap} dump, e.g. another shard's step-metrics JSON. */
+    @SuppressWarnings("unchecked")
+    public static void merge(Map<String, Object> steps) {
+        for (Map.Entry<String, Object> e : steps.entrySet()) {
+            Map<String, Object> step = (Map<String, Object>) e.getValue();
+            Map<String, String> histograms = (Map<String, String>) step.get("histograms");
+            Stats s = STATS.computeIfAbsent(e.getKey(), k -> new Stats());
+            s.total.add(decode(histograms.get("total")));
+            s.waits.add(decode(histograms.get("wait")));
+            s.actions.add(decode(histograms.get("action")));
+            s.failures.add(((Number) step.get("failures")).longValue());
+            s.retries.add(((Number) step.get("retries")).longValue());
+        }
+    }
+
+    public static void writeJson(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, new Json().toJson(toMap()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    static Histogram decode(String encoded) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), MAX_TRACKABLE_MICROS);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt step histogram", e);
+        }
+    }
+
+    private static Map<String, String> encoded(Stats s) {
+        Map<String, String> out = new LinkedHashMap<>();
+        out.put("total", encode(s.total));
+        out.put("wait", encode(s.waits));
+        out.put("action", encode(s.actions));
+        return out;
+    }
+
+    private static Map<String, Long> percentiles(Histogram h) {
+        Map<String, Long> out = new LinkedHashMap<>();
+        out.put("p50", h.getValueAtPercentile(50));
+        out.put("p95", h.getValueAtPercentile(95));
+        out.put("p99", h.getValueAtPercentile(99));
+        out.put("max", h.getMaxValue());
+        return out;
+    }
+
+    private static void record(Histogram histogram, long nanos) {
+        histogram.recordValue(Math.min(MAX_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    private static String millis(long micros) {
+        return String.valueOf(micros / 1000);
+    }
+}
@@ -0,0 +1,94 @@
+package org.test;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Waits for autocomplete suggestions from inside the page. A MutationObserver is
+ * installed on the document and the async script calls back the moment visible
+ * options exist, so the Java side blocks on a single WebDriver command instead of
+ * polling findElements.
+ */
+public class SuggestionWatcher {
+
+    // arguments: input element (or null), list id (or null), timeout ms, callback
+    private static final String WATCH_SCRIPT =
+        "const input=arguments[0], listId=arguments[1], timeout=arguments[2], done=arguments[arguments.length-1];" +
+        "const visible=el=>{ if(!el||!el.isConnected) return false; const s=getComputedStyle(el);" +
+        "  return s.visibility!=='hidden' && s.display!=='none' && el.getClientRects().length>0; };" +
+        "const all=(root,css)=>root ? Array.from(root.querySelectorAll(css)).filter(visible) : [];" +
+        "const byId=id=>id ? document.getElementById(id) : null;" +
+        "const following=(xpath)=>{ try { return document.evaluate(xpath,input,null,XPathResult.FIRST_ORDERED_NODE_TYPE,null).singleNodeValue; } catch(e){ return null; } };" +
+        "const find=()=>{" +
+        "  if(!input) return all(byId(listId),\"[role='option']\");" +
+        "  let r=all(byId(input.getAttribute('aria-controls')),\"[role='option'], li, .list-group-item, .autocomplete-item\");" +
+        "  if(r.length) return r;" +
+        "  for(const xp of ['following::ul[contains(@class,\"autocomplete\")][1]','following::div[contains(@class,\"autocomplete\")][1]'," +
+        "                  'following::div[contains(@class,\"dropdown-menu\")][1]','following::ul[contains(@class,\"dropdown-menu\")][1]']){" +
+        "    r=all(following(xp),\"[role='option'], li, .list-group-item, .autocomplete-item, .dropdown-item\");" +
+        "    if(r.length) return r;" +
+        "  }" +
+        "  r=all(document,'.pac-container .pac-item');" +
+        "  if(r.length) return r;" +
+        "  return all(document,\".dropdown-menu.show .dropdown-item, .dropdown-menu.show li, [role='listbox'] [role='option']\");" +
+        "};" +
+        "let finished=false, timer=null;" +
+        "const obs=new MutationObserver(()=>check());" +
+        "const finish=res=>{ if(finished) return; finished=true; obs.disconnect(); clearTimeout(timer); done(res); };" +
+        "const check=()=>{ const r=find(); if(r.length) finish(r); };" +
+        "obs.observe(document.documentElement,{childList:true,subtree:true,attributes:true," +
+        "  attributeFilter:['class','style','hidden','aria-expanded']});" +
+        "timer=setTimeout(()=>finish([]),timeout);" +
+        "check();";
+
+    private final WebDriver driver;
+    private Duration scriptTimeout;
+
+    public SuggestionWatcher(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /** Visible {@code [role='option']} rows inside the list with the given id; empty if none appear in time. */
+    public List<WebElement> awaitOptions(String listId, Duration timeout) {
+        return watch(null, listId, timeout);
+    }
+
+    /**
+     * Visible suggestions for an address input: the list it controls via aria-controls,
+     * the next autocomplete/dropdown container after it, Google Places rows, or any open
+     * dropdown, in that order. Empty if none appear in time.
+     */
+    public List<WebElement> awaitOptions(WebElement input, Duration timeout) {
+        return watch(input, null, timeout);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<WebElement> watch(WebElement input, String listId, Duration timeout) {
+        ensureScriptTimeout(timeout.plusSeconds(5));
+        return StepMetrics.waiting(() -> {
+            try {
+                Object result = ((JavascriptExecutor) driver).executeAsyncScript(
+                        WATCH_SCRIPT, input, listId, timeout.toMillis());
+                return result instanceof List ? (List<WebElement>) result : new ArrayList<>();
+            } catch (ScriptTimeoutException e) {
+                return new ArrayList<>();
+            }
+        });
+    }
+
+    // Reading the timeout is itself a round trip, so it is only fetched once per watcher
+    private void ensureScriptTimeout(Duration needed) {
+        WebDriver.Timeouts timeouts = driver.manage().timeouts();
+        if (scriptTimeout == null) scriptTimeout = timeouts.getScriptTimeout();
+        if (scriptTimeout.compareTo(needed) < 0) {
+            timeouts.scriptTimeout(needed);
+            scriptTimeout = needed;
+        }
+    }
+}
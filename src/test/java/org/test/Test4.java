@@ -1,92 +1,65 @@
 package org.test;
 
 import org.openqa.selenium.*;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.support.ui.*;
 import org.testng.Assert;
 import org.testng.annotations.*;
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
-@Listeners(org.test.TestListener.class)
-public class Test4 {
+@Listeners({ org.test.TestListener.class, org.test.Shard.class })
+public class Test4 implements DriverAware {
 
 
-private WebDriver driver;
-private Test4Steps steps;
-private String mainHandle;
-
 @BeforeClass(alwaysRun = true)
 public void setUp() {
-    ChromeOptions options = new ChromeOptions();
     boolean isCI = "true".equalsIgnoreCase(System.getenv("CI"));
 
-    // Recommended stability flags (works locally & in CI)
-    options.addArguments("--headless=new");
-    options.addArguments("--disable-gpu");
-    options.addArguments("--no-sandbox");
-    options.addArguments("--disable-dev-shm-usage");
-    options.addArguments("--window-size=1920,1080");
-    options.addArguments("--remote-allow-origins=*");
-
     if (isCI) {
         System.out.println("Running in CI environment → Headless enabled.");
     } else {
         System.out.println("Running locally.");
     }
+    SessionPool.warmUp();
+}
 
-    driver = new ChromeDriver(options);
-    TestListener.driver = driver;
-    steps = new Test4Steps(driver);
+@Override
+public WebDriver getDriver() {
+    return DriverPool.current();
 }
 
-@Test
+@Test(retryAnalyzer = FunnelRetry.class)
 public void rentXQuoteWorkflow() {
-    System.out.println("Opening RentX quote page...");
-    driver.get("https://rentx.com/quote");
-
-    mainHandle = driver.getWindowHandle();
+    runQuote(QuoteScenario.defaults(), "");
+}
 
-    try {
-        debug("Booking flow started");
-
-        // Execute full booking flow
-        steps.runFlowWithAddressIndices(
-                "l",
-                "19-12-2026",
-                "01:00 PM",
-                "st", 1,
-                "12", 2
-        );
+/**
+ * Scenario matrix from -Dquote.categories / -Dquote.pickups / -Dquote.drops.
+ * Invocations run in parallel, one browser session per data-provider thread
+ * (thread count: -Dquote.threads). A sharded run keeps its share of the rows.
+ */
+@DataProvider(name = "quoteMatrix", parallel = true)
+public Object[][] quoteMatrix() {
+    List<QuoteScenario> scenarios = QuoteScenario.matrix();
+    List<Object[]> data = new ArrayList<>();
+    for (int i = 0; i < scenarios.size(); i++) if (Shard.owns(i)) data.add(new Object[] { scenarios.get(i) });
+    return data.toArray(new Object[0][]);
+}
 
-        // Wait for customer fields
-        steps.waitForStep3();
-
-        System.out.println("Filling customer details...");
-        steps.fillCustomerDetails(
-                "Test Vel",
-                "Test Mobo",
-                "vel@mobo.co.uk",
-                "8888888888",
-                true,
-                mainHandle
-        );
+@Test(dataProvider = "quoteMatrix", retryAnalyzer = FunnelRetry.class)
+public void rentXQuoteWorkflowMatrix(QuoteScenario scenario) {
+    runQuote(scenario, "_" + scenario.slug());
+}
 
-        System.out.println("Submitting quote...");
-        steps.clickSubmit(mainHandle);
+private void runQuote(QuoteScenario scenario, String fileSuffix) {
+    WebDriver driver = DriverPool.get();
 
-        // Wait for Thank You confirmation
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(45));
-        WebElement thankYouMsg = wait.until(
-                ExpectedConditions.visibilityOfElementLocated(
-                        By.cssSelector("h3.ticket-text.ticket-text-color.mb-2.pb-2.border-bottom")
-                )
-        );
+    System.out.println("Opening RentX quote page...");
 
-        String text = thankYouMsg.getText();
+    try {
+        // a retry of the same scenario resumes from the last completed stage
+        String text = QuoteFlow.resumable(driver, scenario, "Test4" + fileSuffix);
 
         Assert.assertTrue(
                 text.contains("Thank you for the"),
@@ -96,52 +69,42 @@ public void rentXQuoteWorkflow() {
         System.out.println("Test Passed — Thank You page located successfully!");
 
         // 🎯 Screenshot ONLY when Thank You is visible
-        takeScreenshot("thank_you_visible.png");
+        takeScreenshot(driver, "thank_you_visible" + fileSuffix + ".png");
 
         return;
 
     } catch (Exception e) {
-        takeScreenshot("failure_rentx_quote.png");
-        dumpPageSource();
+        takeScreenshot(driver, "failure_rentx_quote" + fileSuffix + ".png");
+        // the DOM diff below covers failures; the full page is opt-in with -Ddom.fullSource=true
+        if (Boolean.getBoolean("dom.fullSource")) dumpPageSource(driver);
+        String diff = DomSnapshot.reportFailure(driver, "failure_rentx_quote" + fileSuffix);
+        if (diff != null) System.out.println("DOM diff saved: " + Shard.outputDir().resolve(diff));
         e.printStackTrace();
         Assert.fail("Test failed: " + e.getMessage());
     }
 }
 
-private void takeScreenshot(String fileName) {
-    try {
-        File screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-        File dest = new File("test-output/screenshots/" + fileName);
-        Files.createDirectories(dest.getParentFile().toPath());
-        Files.copy(screenshot.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        System.out.println("Screenshot saved: " + dest.getAbsolutePath());
-    } catch (IOException ex) {
-        System.err.println("Screenshot capture failed: " + ex.getMessage());
-    }
+private void takeScreenshot(WebDriver driver, String fileName) {
+    ScreenshotService.capture(driver, fileName).thenAccept(path -> {
+        if (path != null) System.out.println("Screenshot saved: " + fileName + " -> " + Shard.outputDir().resolve(path).toAbsolutePath());
+    });
 }
 
-private void dumpPageSource() {
+private void dumpPageSource(WebDriver driver) {
     try {
-        String html = driver.getPageSource();
-        String file = "test-output/screenshots/page-source-" + System.currentTimeMillis() + ".html";
-        Files.createDirectories(Paths.get("test-output/screenshots"));
-        Files.writeString(Paths.get(file), html);
-        System.out.println("Page source saved: " + file);
+        String name = "page-source-" + System.currentTimeMillis() + ".html";
+        String path = ArtifactStore.putHtml(name, driver.getPageSource());
+        System.out.println("Page source saved: " + name + " -> " + Shard.outputDir().resolve(path));
     } catch (IOException ex) {
         System.err.println("Failed to save page source: " + ex.getMessage());
     }
 }
 
-private void debug(String message) {
-    System.out.println("DEBUG: " + message + " | URL: " + driver.getCurrentUrl());
-}
-
 @AfterClass(alwaysRun = true)
 public void tearDown() {
-    if (driver != null) {
-        driver.quit();
-        System.out.println("Browser closed — Test Completed.");
-    }
+    // Sessions are reset and kept warm for the next class; the pool quits them at JVM exit
+    DriverPool.releaseAll();
+    System.out.println("Browser closed — Test Completed.");
 }
 
 
@@ -1,43 +1,104 @@
 package org.test;
 import org.openqa.selenium.*;
 import org.openqa.selenium.NoSuchElementException;
-import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import java.time.Duration;
 import java.util.*;
 
 public class Test4Steps {
+   static final Locator[] NEXT_BUTTON = {
+           Locator.xpath("//button[.//span[normalize-space()='Next']]"),
+           Locator.xpath("//button[normalize-space()='Next']"),
+           Locator.css("button.btn-primary-theme-quote[type='submit']"),
+           Locator.css("button[type='submit']:not([disabled])")
+   };
+   static final Locator[] SUBMIT_BUTTON = {
+           Locator.css("button.next[type='submit']"),
+           Locator.xpath("//button[@type='submit' and .//span[normalize-space()='Submit']]"),
+           Locator.xpath("//button[@type='submit' and (contains(.,'Submit') or contains(.,'SUBMIT'))]"),
+           Locator.css("button.btn-primary-theme-quote.next[type='submit']")
+   };
+   static final Locator FIRST_NAME = Locator.xpath("//input[@placeholder='Enter First Name']");
+   static final Locator LAST_NAME = Locator.css("input[name='sur_name']");
+   static final Locator EMAIL = Locator.css("input[name='email']");
+   static final Locator PHONE = Locator.css("input[name='phone'], input[id*='phone']");
+   static final Locator PHONE_FLAG = Locator.css(".iti__selected-flag");
+   static final Locator START_DATE = Locator.css("input[name='start_date']");
+   static final Locator START_TIME = Locator.css("input[name='start_time']");
+   // the fields the steps look up; DomSnapshot reports any that stop matching
+   static final Locator[] FUNNEL_FIELDS = {
+           Locator.css("#fetch_service"),
+           Locator.css("label[for^='type_of_service']"),
+           START_DATE,
+           Locator.css("#customDropdownButton"),
+           START_TIME,
+           Locator.css("#fetch_postcode"),
+           Locator.css("#fetch_address"),
+           FIRST_NAME,
+           LAST_NAME,
+           EMAIL,
+           PHONE,
+           PHONE_FLAG,
+           Locator.css(".checkbox-agree input[type='checkbox'][name='terms']")
+   };
+
+   private static final Duration STEP_TIMEOUT = Duration.ofSeconds(15);
+
    private final WebDriver driver;
-   private final WebDriverWait wait;
+   private final SuggestionWatcher suggestions;
+   private final LocatorResolver resolver;
+   private final ReadinessTracker readiness;
 
    public Test4Steps(WebDriver driver) {
        this.driver = driver;
-       this.wait = new WebDriverWait(driver, Duration.ofSeconds(15));
+       this.suggestions = new SuggestionWatcher(driver);
+       this.resolver = new LocatorResolver(driver);
+       this.readiness = ReadinessTracker.of(driver);
    }
 
-   private void debug(String msg) { System.out.println("[DEBUG] " + msg); }
+   void debug(String msg) { System.out.println("[DEBUG] " + msg); }
+
+   // each wait keeps its own history in TimeoutPolicy, so a quick check is not sized like a slow lookup
+   private WebDriverWait waitFor(String name) { return new TimedWait(driver, name, STEP_TIMEOUT); }
 
    private void safeClick(WebElement el) {
        try {
            ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block:'center'});", el);
-           wait.until(ExpectedConditions.elementToBeClickable(el)).click();
+           waitFor("clickable").until(ExpectedConditions.elementToBeClickable(el)).click();
        } catch (ElementClickInterceptedException | TimeoutException e) {
            ((JavascriptExecutor) driver).executeScript("arguments[0].click();", el);
        }
    }
 
-   private WebElement findVisible(By locator) { return wait.until(ExpectedConditions.visibilityOfElementLocated(locator)); }
+   private WebElement findVisible(String name, By locator) { return waitFor(name).until(ExpectedConditions.visibilityOfElementLocated(locator)); }
 
-   private void nap(long ms) { try { Thread.sleep(ms); } catch (InterruptedException ignored) {} }
+   private void nap(long ms) {
+       StepMetrics.waiting(() -> { try { Thread.sleep(ms); } catch (InterruptedException ignored) {} return null; });
+   }
 
    private void waitForOverlayToDisappear() {
        By overlay = By.cssSelector(".loading-overlay, .spinner, .blockUI, .modal-backdrop.show, .overlay, .page-loader");
-       try { new WebDriverWait(driver, Duration.ofSeconds(8))
+       try { new TimedWait(driver, "overlay", Duration.ofSeconds(8))
                .until(ExpectedConditions.invisibilityOfElementLocated(overlay));
        } catch (TimeoutException ignored) {}
    }
 
+   // Blocks on what the click set off, then makes sure no overlay is left; without DevTools it is the overlay poll alone.
+   // A click that must reach the server fails the step when it never does; otherwise a slow page is only logged.
+   private void waitForPageToSettle(long[] mark, String name, boolean mustReachServer) {
+       if (readiness != null) {
+           try {
+               new TimedWait(driver, name, Duration.ofSeconds(mustReachServer ? 45 : 8))
+                       .until(mustReachServer ? readiness.answeredSince(mark) : readiness.settledSince(mark));
+           } catch (TimeoutException e) {
+               if (mustReachServer) throw new TimeoutException(name + ": no request answered and no navigation after the click", e);
+               debug(name + ": page did not settle in time, continuing");
+           }
+       }
+       waitForOverlayToDisappear();
+   }
+
    private void closeUnexpectedTabsExcept(String mainHandle) {
        try {
            Set<String> all = driver.getWindowHandles();
@@ -52,83 +113,83 @@ public class Test4Steps {
    }
 
    public void chooseCategory(String searchTerm) {
-       debug("Category: focusing input");
-       WebElement categoryInput = findVisible(By.id("fetch_service"));
-       safeClick(categoryInput);
-       categoryInput.clear();
-       categoryInput.sendKeys(searchTerm);
-       String listId = categoryInput.getAttribute("aria-controls");
-       if (listId == null || listId.isBlank()) listId = "autoComplete_list_1";
-       debug("Category: waiting for suggestions #" + listId);
-       wait.until(ExpectedConditions.visibilityOfElementLocated(By.id(listId)));
-       By options = By.cssSelector("#" + listId + " [role='option']");
-       List<WebElement> items = wait.until(ExpectedConditions.visibilityOfAllElementsLocatedBy(options));
-       if (items.isEmpty()) throw new TimeoutException("No autocomplete options found in #" + listId);
-       debug("Category: clicking first option");
-       safeClick(items.get(0));
-       nap(150);
+       StepMetrics.time("chooseCategory", () -> {
+           debug("Category: focusing input");
+           WebElement categoryInput = findVisible("categoryInput", By.id("fetch_service"));
+           safeClick(categoryInput);
+           categoryInput.clear();
+           categoryInput.sendKeys(searchTerm);
+           String controls = categoryInput.getAttribute("aria-controls");
+           String listId = controls == null || controls.isBlank() ? "autoComplete_list_1" : controls;
+           debug("Category: waiting for suggestions #" + listId);
+           List<WebElement> items = TimeoutPolicy.observe("categorySuggestions", Duration.ofSeconds(15), t -> suggestions.awaitOptions(listId, t));
+           if (items.isEmpty()) throw new TimeoutException("No autocomplete options found in #" + listId);
+           debug("Category: clicking first option");
+           safeClick(items.get(0));
+           nap(150);
+       });
    }
 
    public void chooseFirstSubcategory() {
-       By subcatLabels = By.cssSelector("label[for^='type_of_service']");
-       List<WebElement> labels = wait.until(ExpectedConditions.visibilityOfAllElementsLocatedBy(subcatLabels));
-       if (labels.isEmpty()) throw new RuntimeException("No subcategories found.");
-       safeClick(labels.get(0));
-       nap(150);
+       StepMetrics.time("chooseFirstSubcategory", () -> {
+           By subcatLabels = By.cssSelector("label[for^='type_of_service']");
+           List<WebElement> labels = waitFor("subcategories").until(ExpectedConditions.visibilityOfAllElementsLocatedBy(subcatLabels));
+           if (labels.isEmpty()) throw new RuntimeException("No subcategories found.");
+           safeClick(labels.get(0));
+           nap(150);
+       });
    }
 
-   private void waitForSubcategoryChecked() {
+   public void waitForSubcategoryChecked() {
        debug("Subcat: waiting for checked radio");
-       wait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("input[name='type_of_service']:checked")));
+       waitFor("subcategoryChecked").until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("input[name='type_of_service']:checked")));
    }
 
-   private void waitForDateStep() {
+   public void waitForDateStep() {
        debug("Step 2: waiting for date input");
-       WebElement el = wait.until(ExpectedConditions.visibilityOfElementLocated(By.cssSelector("input[name='start_date']")));
+       WebElement el = waitFor("dateStep").until(ExpectedConditions.visibilityOfElementLocated(By.cssSelector("input[name='start_date']")));
        ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block:'center'});", el);
        nap(150);
    }
 
    public void setDateByJS(String ddMMyyyyWithDashes) {
-       debug("Date(JS): " + ddMMyyyyWithDashes);
-       WebElement dateInput = findVisible(By.cssSelector("input[name='start_date']"));
-       String js = "const el=arguments[0],v=arguments[1];el.value=v;el.setAttribute('value',v);" +
-               "['input','change','blur'].forEach(e=>el.dispatchEvent(new Event(e,{bubbles:true})));";
-       ((JavascriptExecutor) driver).executeScript(js, dateInput, ddMMyyyyWithDashes);
-       String got = dateInput.getAttribute("value");
-       if (got == null || !got.trim().equals(ddMMyyyyWithDashes)) {
-           throw new RuntimeException("Date not set: " + got);
-       }
+       StepMetrics.time("setDateByJS", () -> {
+           debug("Date(JS): " + ddMMyyyyWithDashes);
+           FormBatch.Result result = new FormBatch(driver).type(START_DATE, ddMMyyyyWithDashes).runWhenReady(waitFor("dateField"));
+           if (!result.ok(0)) throw new RuntimeException("Date not set: " + result.actual(0));
+       });
    }
 
    public void pickTimeByText(String timeTextDesired) {
-       debug("Time: open dropdown");
-       WebElement trigger = findVisible(By.id("customDropdownButton"));
-       safeClick(trigger);
-       wait.until(ExpectedConditions.visibilityOfElementLocated(
-               By.cssSelector(".dropdown-menu.show, [role='menu'].show, .time-menu.show, .time-list.show")));
-       List<WebElement> selects = wait.until(
-               ExpectedConditions.visibilityOfAllElementsLocatedBy(By.xpath("//button[normalize-space()='Select']")));
-       if (selects.isEmpty()) throw new TimeoutException("No time rows");
-       String desired = normalizeTime(timeTextDesired);
-       String desiredNo0 = desired.replaceAll("\\b0([1-9]:)", "$1");
-       for (WebElement btn : selects) {
-           WebElement row = btn;
-           try { row = btn.findElement(By.xpath("./ancestor::*[self::tr or self::li or self::div][1]")); }
-           catch (Exception ignored) {}
-           ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block:'center'});", row);
-           String txt = normalizeTime(row.getText());
-           if (txt.contains(desired) || txt.contains(desiredNo0)) { safeClick(btn); return; }
-       }
-       safeClick(selects.get(0)); // fallback
+       StepMetrics.time("pickTimeByText", () -> {
+           debug("Time: open dropdown");
+           WebElement trigger = findVisible("timeTrigger", By.id("customDropdownButton"));
+           safeClick(trigger);
+           waitFor("timeMenu").until(ExpectedConditions.visibilityOfElementLocated(
+                   By.cssSelector(".dropdown-menu.show, [role='menu'].show, .time-menu.show, .time-list.show")));
+           List<WebElement> selects = waitFor("timeRows").until(
+                   ExpectedConditions.visibilityOfAllElementsLocatedBy(By.xpath("//button[normalize-space()='Select']")));
+           if (selects.isEmpty()) throw new TimeoutException("No time rows");
+           String desired = normalizeTime(timeTextDesired);
+           String desiredNo0 = desired.replaceAll("\\b0([1-9]:)", "$1");
+           for (WebElement btn : selects) {
+               WebElement row = btn;
+               try { row = btn.findElement(By.xpath("./ancestor::*[self::tr or self::li or self::div][1]")); }
+               catch (Exception ignored) {}
+               ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block:'center'});", row);
+               String txt = normalizeTime(row.getText());
+               if (txt.contains(desired) || txt.contains(desiredNo0)) { safeClick(btn); return; }
+           }
+           safeClick(selects.get(0)); // fallback
+       });
    }
 
    public void setTimeByJS(String timeText) {
-       debug("Time(JS): " + timeText);
-       WebElement timeInput = findVisible(By.cssSelector("input[name='start_time']"));
-       String js = "const el=arguments[0],v=arguments[1];el.value=v;el.setAttribute('value',v);" +
-               "['input','change','blur'].forEach(e=>el.dispatchEvent(new Event(e,{bubbles:true})));";
-       ((JavascriptExecutor) driver).executeScript(js, timeInput, timeText);
+       StepMetrics.time("setTimeByJS", () -> {
+           debug("Time(JS): " + timeText);
+           // the time input usually sits hidden behind the custom dropdown
+           new FormBatch(driver).set(START_TIME, timeText).runWhenReady(waitFor("timeField"));
+       });
    }
 
    private String normalizeTime(String s) {
@@ -142,62 +203,32 @@ public class Test4Steps {
        try { ((JavascriptExecutor) driver).executeScript("document.activeElement && document.activeElement.blur();"); } catch (Exception ignored) {}
        try { driver.switchTo().activeElement().sendKeys(Keys.ESCAPE); } catch (Exception ignored) {}
        try {
-           new WebDriverWait(driver, Duration.ofSeconds(5)).until(ExpectedConditions.invisibilityOfElementLocated(
+           new TimedWait(driver, "menuClose", Duration.ofSeconds(5)).until(ExpectedConditions.invisibilityOfElementLocated(
                    By.cssSelector(".dropdown-menu.show,[role='menu'].show,.time-menu.show,.time-list.show")));
        } catch (TimeoutException ignored) {}
    }
 
-   private ExpectedCondition<Boolean> elementIsEnabled(WebElement el) {
-       return d -> el != null && el.isDisplayed() && el.isEnabled()
-               && !"true".equalsIgnoreCase(el.getAttribute("aria-disabled"))
-               && (el.getAttribute("disabled") == null)
-               && !(String.valueOf(el.getAttribute("class")).toLowerCase().contains("disabled"));
-   }
-
    private WebElement findNextLikeButtonOrNull() {
-       By[] locs = {
-               By.xpath("//button[.//span[normalize-space()='Next']]"),
-               By.xpath("//button[normalize-space()='Next']"),
-               By.cssSelector("button.btn-primary-theme-quote[type='submit']"),
-               By.cssSelector("button[type='submit']:not([disabled])")
-       };
-       for (By by : locs) {
-           for (WebElement el : driver.findElements(by)) if (el.isDisplayed()) return el;
-       }
-       return null;
+       LocatorResolver.Match match = resolver.firstVisible(NEXT_BUTTON);
+       if (match == null) return null;
+       debug("Next: " + match);
+       return match.element;
    }
 
    public void clickNextSmart() {
-       closeOpenMenusIfAny(); waitForOverlayToDisappear();
-       WebElement next = findNextLikeButtonOrNull();
-       if (next == null) { ((JavascriptExecutor) driver).executeScript("window.scrollTo(0, document.body.scrollHeight);"); nap(120); next = findNextLikeButtonOrNull(); }
-       if (next == null) { ((JavascriptExecutor) driver).executeScript("window.scrollTo(0, 0);"); nap(120); next = findNextLikeButtonOrNull(); }
-       if (next == null) throw new TimeoutException("Next not found");
-       new WebDriverWait(driver, Duration.ofSeconds(8)).until(elementIsEnabled(next));
-       ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block:'center'});", next);
-       safeClick(next); waitForOverlayToDisappear();
-   }
-
-   private List<WebElement> findAddressOptionsForInput(WebElement input) {
-       String listId = input.getAttribute("aria-controls");
-       if (listId != null && !listId.isBlank()) {
-           List<WebElement> inside = driver.findElements(By.cssSelector(
-                   "#" + listId + " [role='option'], #" + listId + " li, #" + listId + " .list-group-item, #" + listId + " .autocomplete-item"));
-           if (!inside.isEmpty()) return inside;
-       }
-       try {
-           WebElement cont = input.findElement(By.xpath(
-                   "(.//following::ul[contains(@class,'autocomplete')][1] | " +
-                           ".//following::div[contains(@class,'autocomplete')][1] | " +
-                           ".//following::div[contains(@class,'dropdown-menu')][1] | " +
-                           ".//following::ul[contains(@class,'dropdown-menu')][1])"));
-           List<WebElement> rows = cont.findElements(By.cssSelector(
-                   "[role='option'], li, .list-group-item, .autocomplete-item, .dropdown-item"));
-           if (!rows.isEmpty()) return rows;
-       } catch (NoSuchElementException ignored) {}
-       List<WebElement> pac = driver.findElements(By.cssSelector(".pac-container .pac-item"));
-       if (!pac.isEmpty()) return pac;
-       return driver.findElements(By.cssSelector(".dropdown-menu.show .dropdown-item, .dropdown-menu.show li, [role='listbox'] [role='option']"));
+       StepMetrics.time("clickNextSmart", () -> {
+           closeOpenMenusIfAny(); waitForOverlayToDisappear();
+           WebElement next = findNextLikeButtonOrNull();
+           if (next == null) { ((JavascriptExecutor) driver).executeScript("window.scrollTo(0, document.body.scrollHeight);"); nap(120); next = findNextLikeButtonOrNull(); }
+           if (next == null) { ((JavascriptExecutor) driver).executeScript("window.scrollTo(0, 0);"); nap(120); next = findNextLikeButtonOrNull(); }
+           if (next == null) throw new TimeoutException("Next not found");
+           // the button found above, enabled; one script per poll instead of five attribute reads
+           WebElement found = next;
+           new TimedWait(driver, "nextClickable", Duration.ofSeconds(8)).until(d -> resolver.isClickable(found));
+           ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block:'center'});", next);
+           long[] mark = readiness == null ? null : readiness.mark();
+           safeClick(next); waitForPageToSettle(mark, "nextSettled", false);
+       });
    }
 
    /**
@@ -209,80 +240,77 @@ public class Test4Steps {
     * n - 1-based index of suggestion to pick
     */
    public String selectAddressByIndex(String inputId, String query, int n) {
-       if (n < 1) n = 1;
-       WebElement input = findVisible(By.id(inputId));
-       int attempts = 0;
-       final int maxAttempts = 3;
-       String lastValue = null;
-
-       while (attempts < maxAttempts) {
-           attempts++;
-           try {
-               debug("Address select attempt " + attempts + " for '" + query + "' on " + inputId);
-               safeClick(input);
-               input.clear();
-               input.sendKeys(query);
-
-               // longer wait for suggestions in CI
-               WebDriverWait longWait = new WebDriverWait(driver, Duration.ofSeconds(20));
-               List<WebElement> options = new ArrayList<>();
-               long end = System.currentTimeMillis() + 20000;
-               while (System.currentTimeMillis() < end) {
-                   options = findAddressOptionsForInput(input);
-                   if (!options.isEmpty()) break;
-                   nap(150);
-               }
-
-               if (options.isEmpty()) {
-                   debug("No suggestions found (attempt " + attempts + ")");
-                   throw new TimeoutException("No address suggestions for: " + query);
-               }
-
-               int idx = Math.min(n - 1, options.size() - 1);
-               WebElement option = options.get(idx);
-               WebElement clickable = null;
-               try { clickable = option.findElement(By.cssSelector("a, button")); } catch (NoSuchElementException ignored) {}
-               WebElement target = (clickable != null ? clickable : option);
-
-               ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block:'center'});", target);
-               safeClick(target);
-
-               // Wait for the input value to become populated
+       return StepMetrics.time("selectAddressByIndex:" + inputId, () -> {
+           WebElement input = findVisible("addressInput", By.id(inputId));
+           int attempts = 0;
+           final int maxAttempts = 3;
+           String lastValue = null;
+
+           while (attempts < maxAttempts) {
+               attempts++;
+               if (attempts > 1) StepMetrics.retry();
                try {
-                   longWait.until(d -> {
-                       try {
-                           String v = input.getAttribute("value");
-                           return v != null && v.trim().length() > 3;
-                       } catch (Exception ex) {
-                           return false;
-                       }
-                   });
-               } catch (TimeoutException e) {
-                   debug("Value did not populate after clicking suggestion (attempt " + attempts + ")");
-               }
-
-               // Verify address accepted using heuristics
-               if (waitForAddressAccepted(input, 8)) {
-                   lastValue = input.getAttribute("value");
-                   debug("Address accepted: " + lastValue);
-                   return lastValue;
-               } else {
-                   debug("Address NOT accepted by form (attempt " + attempts + ")");
+                   debug("Address select attempt " + attempts + " for '" + query + "' on " + inputId);
+                   safeClick(input);
+                   input.clear();
+                   input.sendKeys(query);
+
+                   // longer wait for suggestions in CI; returns as soon as the list renders
+                   WebDriverWait longWait = new TimedWait(driver, "addressValue", Duration.ofSeconds(20));
+                   List<WebElement> options = TimeoutPolicy.observe("addressSuggestions", Duration.ofSeconds(20),
+                           t -> suggestions.awaitOptions(input, t));
+
+                   if (options.isEmpty()) {
+                       debug("No suggestions found (attempt " + attempts + ")");
+                       throw new TimeoutException("No address suggestions for: " + query);
+                   }
+
+                   int idx = Math.min(Math.max(n, 1) - 1, options.size() - 1);
+                   WebElement option = options.get(idx);
+                   WebElement clickable = null;
+                   try { clickable = option.findElement(By.cssSelector("a, button")); } catch (NoSuchElementException ignored) {}
+                   WebElement target = (clickable != null ? clickable : option);
+
+                   ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block:'center'});", target);
+                   safeClick(target);
+
+                   // Wait for the input value to become populated
+                   try {
+                       longWait.until(d -> {
+                           try {
+                               String v = input.getAttribute("value");
+                               return v != null && v.trim().length() > 3;
+                           } catch (Exception ex) {
+                               return false;
+                           }
+                       });
+                   } catch (TimeoutException e) {
+                       debug("Value did not populate after clicking suggestion (attempt " + attempts + ")");
+                   }
+
+                   // Verify address accepted using heuristics
+                   if (waitForAddressAccepted(input, 8)) {
+                       lastValue = input.getAttribute("value");
+                       debug("Address accepted: " + lastValue);
+                       return lastValue;
+                   } else {
+                       debug("Address NOT accepted by form (attempt " + attempts + ")");
+                       // small pause before retry
+                       nap(500);
+                   }
+
+               } catch (Exception ex) {
+                   debug("selectAddressByIndex attempt " + attempts + " failed: " + ex.getMessage());
                    // small pause before retry
                    nap(500);
                }
-
-           } catch (Exception ex) {
-               debug("selectAddressByIndex attempt " + attempts + " failed: " + ex.getMessage());
-               // small pause before retry
-               nap(500);
            }
-       }
 
-       // final attempt: if input contains something, return it, otherwise fail
-       String finalVal = input.getAttribute("value");
-       if (finalVal != null && finalVal.trim().length() > 3) return finalVal;
-       throw new TimeoutException("Failed to select address for " + inputId + " after " + maxAttempts + " attempts");
+           // final attempt: if input contains something, return it, otherwise fail
+           String finalVal = input.getAttribute("value");
+           if (finalVal != null && finalVal.trim().length() > 3) return finalVal;
+           throw new TimeoutException("Failed to select address for " + inputId + " after " + maxAttempts + " attempts");
+       });
    }
 
    // convenience wrappers
@@ -297,7 +325,7 @@ public class Test4Steps {
     * - aria-invalid != true
     */
    private boolean waitForAddressAccepted(WebElement input, int timeoutSeconds) {
-       WebDriverWait shortWait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
+       WebDriverWait shortWait = new TimedWait(driver, "addressAccepted", Duration.ofSeconds(timeoutSeconds));
        try {
            return shortWait.until(d -> {
                try {
@@ -344,10 +372,12 @@ public class Test4Steps {
    }
 
    public void waitForStep3() {
-       debug("Step3: wait first_name");
-       WebElement el = wait.until(ExpectedConditions.visibilityOfElementLocated(
-               By.cssSelector("input[name='first_name']")));
-       ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block:'center'});", el);
+       StepMetrics.time("waitForStep3", () -> {
+           debug("Step3: wait first_name");
+           WebElement el = waitFor("step3").until(ExpectedConditions.visibilityOfElementLocated(
+                   By.cssSelector("input[name='first_name']")));
+           ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block:'center'});", el);
+       });
    }
 
    private void clearAndType(WebElement el, String text) {
@@ -408,89 +438,42 @@ public class Test4Steps {
        return false;
    }
 
-   private ExpectedCondition<Boolean> attributeToBeNotEmpty(final By locator, final String attribute) {
-       return driver -> {
-           try {
-               WebElement element = driver.findElement(locator);
-               String attrValue = element.getAttribute(attribute);
-               return attrValue != null && !attrValue.trim().isEmpty();
-           } catch (NoSuchElementException e) {
-               return false;
-           }
-       };
-   }
-
-   private void waitForFlagReady() {
-       new WebDriverWait(driver, Duration.ofSeconds(10)).until(
-               ExpectedConditions.and(
-                       ExpectedConditions.visibilityOfElementLocated(By.cssSelector(".iti__selected-flag")),
-                       attributeToBeNotEmpty(By.cssSelector(".iti__selected-flag"), "title")
-               ));
-   }
-
    public void fillCustomerDetails(String first, String last, String email, String phone, boolean agreeTerms, String mainHandle) {
-       debug("Step3: fill details");
-       WebElement firstName = findVisible(By.xpath("//input[@placeholder='Enter First Name']"));
-       WebElement lastName  = findVisible(By.cssSelector("input[name='sur_name']"));
-       WebElement emailEl   = findVisible(By.cssSelector("input[name='email']"));
-       // Wait for the phone input flag UI to be ready
-       waitForFlagReady();
-       By phoneLocator = By.cssSelector("input[name='phone'], input[id*='phone']");
-       WebElement phoneEl = new WebDriverWait(driver, Duration.ofSeconds(15))
-               .until(ExpectedConditions.elementToBeClickable(phoneLocator));
-       clearAndType(firstName, first);
-       clearAndType(lastName,  last);
-       clearAndType(emailEl,   email);
-       clearAndType(phoneEl,   phone);
-       ((JavascriptExecutor) driver).executeScript(
-               "['input','change','blur'].forEach(e=>arguments[0].dispatchEvent(new Event(e,{bubbles:true})));",
-               phoneEl);
-       if (agreeTerms) {
-           boolean ticked = tickTermsSmartWithIframeSearch();
-           if (!ticked) throw new TimeoutException("Could not find the Terms checkbox inside .checkbox-agree.");
-           closeUnexpectedTabsExcept(mainHandle);
-       }
+       StepMetrics.time("fillCustomerDetails", () -> {
+           debug("Step3: fill details");
+           // one script writes and verifies all four fields, once they and the phone flag UI have rendered
+           Locator[] fields = { FIRST_NAME, LAST_NAME, EMAIL, PHONE };
+           String[] values = { first, last, email, phone };
+           FormBatch batch = new FormBatch(driver);
+           for (int i = 0; i < fields.length; i++) batch.type(fields[i], values[i]);
+           FormBatch.Result result = batch.require(PHONE_FLAG, "title")
+                   .runWhenReady(new TimedWait(driver, "customerFields", Duration.ofSeconds(15)));
+           for (int i = 0; i < fields.length; i++) {
+               if (result.ok(i)) continue;
+               debug("Batch fill did not stick for " + fields[i] + " (got '" + result.actual(i) + "'), typing it");
+               clearAndType(findVisible("customerField", fields[i].toBy()), values[i]);
+           }
+           if (agreeTerms) {
+               boolean ticked = tickTermsSmartWithIframeSearch();
+               if (!ticked) throw new TimeoutException("Could not find the Terms checkbox inside .checkbox-agree.");
+               closeUnexpectedTabsExcept(mainHandle);
+           }
+       });
    }
 
    public void clickSubmit(String mainHandle) {
-       debug("Step3: click Submit");
-       By[] candidates = new By[] {
-               By.cssSelector("button.next[type='submit']"),
-               By.xpath("//button[@type='submit' and .//span[normalize-space()='Submit']]"),
-               By.xpath("//button[@type='submit' and (contains(.,'Submit') or contains(.,'SUBMIT'))]"),
-               By.cssSelector("button.btn-primary-theme-quote.next[type='submit']")
-       };
-       WebElement btn = null;
-       for (By by : candidates) {
-           List<WebElement> found = driver.findElements(by);
-           if (!found.isEmpty() && found.get(0).isDisplayed()) { btn = found.get(0); break; }
-       }
-       if (btn == null) throw new NoSuchElementException("Submit button not found");
-       ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block:'center'});", btn);
-       wait.until(ExpectedConditions.elementToBeClickable(btn));
-       safeClick(btn);
-       waitForOverlayToDisappear();
-       closeUnexpectedTabsExcept(mainHandle);
-   }
-
-   public void runFlowWithAddressIndices(String term,
-                                         String dateDdMmYyyy,
-                                         String timeText,
-                                         String pickupQuery, int pickupIdx,
-                                         String dropQuery,   int dropIdx) {
-       chooseCategory(term);
-       chooseFirstSubcategory();
-       waitForSubcategoryChecked();
-       clickNextSmart();
-       waitForDateStep();
-       setDateByJS(dateDdMmYyyy);
-       try { pickTimeByText(timeText); }
-       catch (TimeoutException | NoSuchElementException e) { setTimeByJS(timeText); }
-
-       // NEW: robust pickup & drop selection
-       selectPickupByIndex(pickupQuery, pickupIdx);
-       selectDropByIndex(dropQuery, dropIdx);
-
-       clickNextSmart();
+       StepMetrics.time("clickSubmit", () -> {
+           debug("Step3: click Submit");
+           LocatorResolver.Match match = resolver.firstVisible(SUBMIT_BUTTON);
+           if (match == null) throw new NoSuchElementException("Submit button not found");
+           debug("Submit: " + match);
+           WebElement btn = match.element;
+           ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView({block:'center'});", btn);
+           waitFor("submitClickable").until(ExpectedConditions.elementToBeClickable(btn));
+           long[] mark = readiness == null ? null : readiness.mark();
+           safeClick(btn);
+           waitForPageToSettle(mark, "submitSettled", true);
+           closeUnexpectedTabsExcept(mainHandle);
+       });
    }
 }
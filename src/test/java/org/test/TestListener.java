@@ -2,57 +2,79 @@ package org.test;
 
 import com.aventstack.extentreports.*;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.JsonFormatter;
 import com.aventstack.extentreports.reporter.configuration.Theme;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
 
 import org.openqa.selenium.*;
+import org.openqa.selenium.json.Json;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.*;
 import org.testng.asserts.SoftAssert;
 
-import ru.yandex.qatools.ashot.AShot;
-import ru.yandex.qatools.ashot.Screenshot;
-
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
+import java.util.List;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TestListener implements ITestListener {
 
     private static ExtentReports extent;
+    // what the report header shows, kept for ShardMerge in a sharded run
+    private static final Map<String, String> systemInfo = new LinkedHashMap<>();
     private static ThreadLocal<ExtentTest> test = new ThreadLocal<>();
-    public static WebDriver driver;
 
     public static ThreadLocal<SoftAssert> softAssert = new ThreadLocal<>();
 
+    // ids that tie a test's lines together in the event stream
+    private static final AtomicInteger eventIds = new AtomicInteger();
+    private static ThreadLocal<String> eventId = new ThreadLocal<>();
+
     @Override
     public void onStart(ITestContext context) {
-        ExtentSparkReporter reporter = new ExtentSparkReporter("test-output/ExtentReport.html");
+        ArtifactStore.enforceRetention();
+        ExtentSparkReporter reporter = new ExtentSparkReporter(Shard.outputDir().resolve("ExtentReport.html").toString());
         reporter.config().setDocumentTitle("Automation Test Report");
         reporter.config().setReportName("Regression Suite");
         reporter.config().setTheme(Theme.DARK);
 
         extent = new ExtentReports();
         extent.attachReporter(reporter);
-        extent.setSystemInfo("Tester", "QA Team");
-        extent.setSystemInfo("Environment", System.getProperty("env", "Production"));
-        extent.setSystemInfo("OS", System.getProperty("os.name"));
-        extent.setSystemInfo("Java Version", System.getProperty("java.version"));
-        extent.setSystemInfo("Browser", System.getProperty("browser", "chrome"));
-        extent.setSystemInfo("Build Number", System.getenv("BUILD_NUMBER") == null ? "N/A" : System.getenv("BUILD_NUMBER"));
+        // the JSON archive is what ShardMerge rebuilds the combined report from
+        if (Shard.isSharded()) extent.attachReporter(new JsonFormatter(Shard.outputDir().resolve("extent.json").toString()));
+        systemInfo("Tester", "QA Team");
+        systemInfo("Environment", System.getProperty("env", "Production"));
+        systemInfo("Quote Target", QuoteTarget.quoteUrl());
+        systemInfo("Network Archive", NetworkArchive.mode().name().toLowerCase());
+        systemInfo("Blocking Profile", BlockingProfile.summary());
+        systemInfo("Shard", Shard.summary());
+        systemInfo("Chrome Profile", ChromeProfiles.templateEnabled() ? "warmed template" : "fresh");
+        systemInfo("OS", System.getProperty("os.name"));
+        systemInfo("Java Version", System.getProperty("java.version"));
+        systemInfo("Browser", System.getProperty("browser", "chrome"));
+        systemInfo("Build Number", System.getenv("BUILD_NUMBER") == null ? "N/A" : System.getenv("BUILD_NUMBER"));
+        EventStream.emit("suiteStart", "name", context.getSuite().getName(), "target", QuoteTarget.quoteUrl());
     }
 
     @Override
     public void onTestStart(ITestResult result) {
         test.set(extent.createTest(result.getMethod().getMethodName()));
         softAssert.set(new SoftAssert());
+        eventId.set(result.getMethod().getMethodName() + "#" + (Shard.isSharded() ? Shard.index() + "." : "") + eventIds.incrementAndGet());
         // Log parameters
         Object[] params = result.getParameters();
+        EventStream.emit("testStart", "test", eventId.get(), "name", result.getMethod().getMethodName(),
+                "params", params.length == 0 ? null : Arrays.toString(params));
         for (Object param : params) {
             test.get().assignCategory(String.valueOf(param));
         }
@@ -61,14 +83,13 @@ public class TestListener implements ITestListener {
 
     @Override
     public void onTestSuccess(ITestResult result) {
-        waitUntilThankYouPageLoads();
-        String screenshotPath = captureFullPageScreenshot(result.getName());
-        if (screenshotPath != null) {
-            test.get().pass("Test Passed")
-                .addScreenCaptureFromPath(screenshotPath);
-        } else {
-            test.get().pass("Test Passed (No screenshot)");
-        }
+        WebDriver driver = driverFor(result);
+        waitUntilThankYouPageLoads(driver);
+        test.get().pass("Test Passed");
+        attachScreenshot(test.get(), captureFullPageScreenshot(driver, screenshotName(result)));
+        reportVisualChecks(test.get());
+        reportWebVitals(test.get(), result);
+        emitTestEnd(result, "pass");
         logStep("Test passed");
         try {
             SoftAssert sa = softAssert.get();
@@ -81,13 +102,13 @@ public class TestListener implements ITestListener {
 
     @Override
     public void onTestFailure(ITestResult result) {
-        String screenshotPath = captureFullPageScreenshot(result.getName());
-        if (screenshotPath != null) {
-            test.get().fail(result.getThrowable())
-                .addScreenCaptureFromPath(screenshotPath);
-        } else {
-            test.get().fail(result.getThrowable());
-        }
+        test.get().fail(result.getThrowable());
+        attachScreenshot(test.get(), captureFullPageScreenshot(driverFor(result), screenshotName(result)));
+        // the last seconds before the failure, from the session's screencast buffer
+        attachScreenshot(test.get(), Screencast.saveClip(driverFor(result), screenshotName(result) + "_clip.gif"));
+        reportVisualChecks(test.get());
+        reportWebVitals(test.get(), result);
+        emitTestEnd(result, "fail");
         logStep("Test failed");
         try {
             SoftAssert sa = softAssert.get();
@@ -101,46 +122,159 @@ public class TestListener implements ITestListener {
     @Override
     public void onTestSkipped(ITestResult result) {
         test.get().skip("Test Skipped");
+        // a retried attempt measured the site too
+        reportWebVitals(test.get(), result);
+        emitTestEnd(result, "skip");
         softAssert.remove();
     }
 
     @Override
     public void onFinish(ITestContext context) {
+        ScreenshotService.awaitPending(Duration.ofSeconds(30));
+        reportStepMetrics();
+        reportTrends();
+        if (NetworkArchive.mode() != NetworkArchive.Mode.OFF) systemInfo("Network Archive", NetworkArchive.summary());
+        writeRunInfo();
         extent.flush();
+        EventStream.emit("suiteEnd", "name", context.getName());
+        try {
+            EventReport.render(EventStream.file(), Shard.outputDir().resolve("EventReport.html"));
+        } catch (IOException e) {
+            System.err.println("Failed to render event report: " + e.getMessage());
+        }
+    }
+
+    private static void systemInfo(String name, String value) {
+        systemInfo.put(name, value);
+        extent.setSystemInfo(name, value);
+    }
+
+    // the merger runs in its own JVM without the shards' -D settings
+    private void writeRunInfo() {
+        if (!Shard.isSharded()) return;
+        try {
+            Files.createDirectories(Shard.outputDir());
+            Files.write(Shard.outputDir().resolve(ShardMerge.RUN_INFO), new Json().toJson(systemInfo).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Failed to write run info: " + e.getMessage());
+        }
+    }
+
+    private void emitTestEnd(ITestResult result, String status) {
+        Throwable error = result.getThrowable();
+        long duration = result.getEndMillis() - result.getStartMillis();
+        EventStream.emit("testEnd", "test", eventId.get(), "status", status,
+                "durationMs", duration,
+                "error", error == null ? null : error.toString());
+        RunHistoryStore.recordTest(screenshotName(result), result.wasRetried() ? "retried" : status, duration, error);
+    }
+
+    // p50/p95/max per funnel step in the report, plus a machine-readable copy per run
+    private void reportStepMetrics() {
+        List<String[]> rows = StepMetrics.summaryRows();
+        if (rows.size() <= 1) return;
+        extent.createTest("Step latency").info(MarkupHelper.createTable(rows.toArray(new String[0][])));
+        List<String[]> waits = TimeoutPolicy.summaryRows();
+        if (waits.size() > 1) extent.createTest("Wait timeouts").info(MarkupHelper.createTable(waits.toArray(new String[0][])));
+        String date = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+        try {
+            Path metrics = Shard.outputDir().resolve("metrics");
+            StepMetrics.writeJson(metrics.resolve("step-metrics-" + date + ".json"));
+            Files.write(metrics.resolve("wait-timeouts-" + date + ".json"), new Json().toJson(TimeoutPolicy.toMap()).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Failed to write step metrics: " + e.getMessage());
+        }
+    }
+
+    // this run goes into the history first, so the trend includes it
+    private void reportTrends() {
+        RunHistoryStore.ingest(StepMetrics.toMap());
+        ExtentTest trends = extent.createTest("Trends");
+        for (List<String[]> rows : Arrays.asList(RunHistoryStore.stepTrendRows(), RunHistoryStore.vitalsTrendRows(), RunHistoryStore.testRows(), RunHistoryStore.failureRows())) {
+            if (rows.size() > 1) trends.info(MarkupHelper.createTable(rows.toArray(new String[0][])));
+        }
     }
 
     public void logStep(String message) {
         test.get().info(message);
+        EventStream.emit("log", "test", eventId.get(), "message", message);
         // To enable step screenshot:
         // String path = captureFullPageScreenshot("Step_" + System.currentTimeMillis());
         // if (path != null) test.get().addScreenCaptureFromPath(path, message);
     }
 
-    // Full page screenshot using AShot 
-    private String captureFullPageScreenshot(String testName) {
-        if (driver == null) return null;
-        try {
-            Screenshot screenshot = new AShot().shootingStrategy(
-                ru.yandex.qatools.ashot.shooting.ShootingStrategies.viewportPasting(200)).takeScreenshot(driver);
-            BufferedImage image = screenshot.getImage();
+    // Listener callbacks run on the test's own thread, so the instance hands back that thread's session
+    private static WebDriver driverFor(ITestResult result) {
+        Object instance = result.getInstance();
+        if (instance instanceof DriverAware) return ((DriverAware) instance).getDriver();
+        return DriverPool.current();
+    }
+
+    // Parallel matrix invocations share a method name, so the scenario keeps their files apart
+    private static String screenshotName(ITestResult result) {
+        Object[] params = result.getParameters();
+        if (params.length > 0 && params[0] instanceof QuoteScenario) {
+            return result.getName() + "_" + ((QuoteScenario) params[0]).slug();
+        }
+        return result.getName();
+    }
 
-            String date = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
-            String relativePath = "screenshots/" + testName + "_" + date + ".png";
-            String absolutePath = "test-output/" + relativePath;
+    // Full page screenshot via DevTools; the file is written off the test thread
+    private CompletableFuture<String> captureFullPageScreenshot(WebDriver driver, String testName) {
+        String date = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+        return ScreenshotService.capture(driver, testName + "_" + date + ".png");
+    }
 
-            Files.createDirectories(new File("test-output/screenshots").toPath());
-            ImageIO.write(image, "PNG", new File(absolutePath));
-            return relativePath;
-        } catch (IOException e) {
-            e.printStackTrace();
+    private void attachScreenshot(ExtentTest extentTest, CompletableFuture<String> screenshot) {
+        String id = eventId.get();
+        // tracked, so onFinish does not flush the report before the attachment is on it
+        ScreenshotService.track(screenshot.handle((path, error) -> {
+            if (error != null) {
+                extentTest.warning("Screenshot failed: " + error);
+                return null;
+            }
+            if (path != null) EventStream.emit("screenshot", "test", id, "path", path);
+            String thumb = ScreenshotService.thumbnail(path);
+            // the report shows the thumbnail, linked to the full capture
+            if (thumb != null) extentTest.info("<a href=\"" + path + "\" target=\"_blank\"><img src=\"" + thumb + "\" alt=\"screenshot\"></a>");
+            else if (path != null) extentTest.addScreenCaptureFromPath(path);
+            else extentTest.info("No screenshot");
             return null;
+        }));
+    }
+
+    // a visual change is a warning, not a failure; the diff image shows where
+    private void reportVisualChecks(ExtentTest extentTest) {
+        for (CompletableFuture<VisualCheck.Result> check : VisualCheck.drain()) {
+            ScreenshotService.track(check.handle((r, error) -> {
+                if (error != null || r == null) {
+                    extentTest.warning("Visual check could not run: " + (error != null ? error : "see the log"));
+                    return null;
+                }
+                if (!r.changed) return null;
+                extentTest.warning(r.toString());
+                if (r.diffPath != null) extentTest.addScreenCaptureFromPath(r.diffPath);
+                return null;
+            }));
         }
     }
 
-    private void waitUntilThankYouPageLoads() {
+    // per-stage browser timings on the test, and into the run history as a time series
+    private void reportWebVitals(ExtentTest extentTest, ITestResult result) {
+        List<WebVitals.Sample> samples = WebVitals.drain();
+        if (samples.isEmpty()) return;
+        String note = WebVitals.blockingNote();
+        if (note != null) extentTest.info(note);
+        extentTest.info(MarkupHelper.createTable(WebVitals.rows(samples).toArray(new String[0][])));
+        List<String> poor = WebVitals.poor(samples);
+        if (!poor.isEmpty()) extentTest.warning("Poor web vitals: " + String.join(", ", poor));
+        for (WebVitals.Sample sample : samples) RunHistoryStore.recordVitals(screenshotName(result), sample);
+    }
+
+    private void waitUntilThankYouPageLoads(WebDriver driver) {
         if (driver == null) return;
         try {
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(15));
+            WebDriverWait wait = new TimedWait(driver, "thankYouPage", Duration.ofSeconds(15));
             wait.until(ExpectedConditions.visibilityOfElementLocated(By.id("thankYouMessage")));
         } catch (Exception e) {
             System.out.println(" Could not verify Thank You page load: " + e.getMessage());
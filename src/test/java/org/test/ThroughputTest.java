@@ -0,0 +1,160 @@
+package org.test;
+
+import org.HdrHistogram.Histogram;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Synthetic throughput mode: streams scenarios from -Dthroughput.scenarios through
+ * the quote funnel on a bounded set of browser sessions and appends one JSON line
+ * per scenario to the results file as soon as it finishes.
+ *
+ * -Dthroughput.sessions  concurrent sessions (default 4)
+ * -Dthroughput.ratePerMinute  target scenario starts per minute, 0 = as fast as sessions allow
+ * -Dthroughput.results  results file (default test-output/throughput/results-<timestamp>.jsonl)
+ *
+ * In a sharded run each shard takes every shard.count-th scenario of the feed.
+ * Not part of a run unless -Dthroughput.scenarios is set ({@link Shard} drops the
+ * {@link #GROUP} group otherwise). Point it at the stand-in with
+ * -Dquote.target=standin to measure the harness rather than rentx.com.
+ */
+public class ThroughputTest {
+
+    static final String GROUP = "throughput";
+
+    private static final Json JSON = new Json();
+
+    static boolean enabled() {
+        String source = System.getProperty("throughput.scenarios");
+        return source != null && !source.isBlank();
+    }
+
+    @Test(groups = { Shard.SLICED, GROUP })
+    public void quoteThroughput() throws Exception {
+        // only reachable without a feed when the interceptor is not registered
+        if (!enabled()) throw new SkipException("Throughput mode is off (set -Dthroughput.scenarios)");
+        String source = System.getProperty("throughput.scenarios");
+
+        int sessions = Math.max(1, Integer.getInteger("throughput.sessions", 4));
+        double ratePerMinute = Double.parseDouble(System.getProperty("throughput.ratePerMinute", "0"));
+        String date = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+        Path results = System.getProperty("throughput.results") != null
+                ? Paths.get(System.getProperty("throughput.results"))
+                : Shard.outputDir().resolve("throughput").resolve("results-" + date + ".jsonl");
+        if (results.getParent() != null) Files.createDirectories(results.getParent());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(sessions, r -> new Thread(r, "throughput-" + threadCount.incrementAndGet()));
+        // one permit per session: the feed is only read as fast as sessions free up
+        Semaphore inFlight = new Semaphore(sessions);
+        Histogram durations = new Histogram(TimeUnit.MINUTES.toMillis(10), 3);
+        AtomicInteger passed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long intervalNanos = ratePerMinute > 0 ? (long) (TimeUnit.MINUTES.toNanos(1) / ratePerMinute) : 0;
+
+        System.out.println("Throughput run: " + source + " on " + sessions + " sessions"
+                + (intervalNanos > 0 ? " at " + ratePerMinute + "/min" : " unpaced") + " -> " + results);
+        long started = System.nanoTime();
+        int submitted = 0;
+        long row = 0;
+        try (ScenarioFeed feed = ScenarioFeed.open(Paths.get(source));
+             BufferedWriter out = Files.newBufferedWriter(results, StandardCharsets.UTF_8)) {
+            long nextStart = started;
+            while (feed.hasNext()) {
+                QuoteScenario scenario = feed.next();
+                if (!Shard.owns(row++)) continue;
+                inFlight.acquire();
+                if (intervalNanos > 0) {
+                    // a slot missed while every session was busy is skipped, not made up in a burst
+                    nextStart = Math.max(nextStart, System.nanoTime());
+                    LockSupport.parkNanos(nextStart - System.nanoTime());
+                    nextStart += intervalNanos;
+                }
+                int seq = ++submitted;
+                workers.execute(() -> {
+                    try {
+                        Map<String, Object> outcome = runOne(seq, scenario);
+                        long ms = (Long) outcome.get("durationMs");
+                        synchronized (durations) { durations.recordValue(Math.min(ms, durations.getHighestTrackableValue())); }
+                        ("pass".equals(outcome.get("outcome")) ? passed : failed).incrementAndGet();
+                        synchronized (out) {
+                            out.write(JSON.toJson(outcome).replace("\n", ""));
+                            out.newLine();
+                            out.flush();
+                        }
+                    } catch (IOException e) {
+                        System.err.println("Failed to write throughput result: " + e.getMessage());
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.DAYS);
+        } finally {
+            workers.shutdownNow();
+            DriverPool.releaseAll();
+        }
+
+        double minutes = (System.nanoTime() - started) / 6e10;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("scenarios", submitted);
+        summary.put("passed", passed.get());
+        summary.put("failed", failed.get());
+        summary.put("sessions", sessions);
+        summary.put("targetPerMinute", ratePerMinute);
+        summary.put("achievedPerMinute", Math.round(passed.get() / Math.max(minutes, 1e-9) * 10) / 10.0);
+        summary.put("p50Ms", durations.getValueAtPercentile(50));
+        summary.put("p95Ms", durations.getValueAtPercentile(95));
+        summary.put("maxMs", durations.getMaxValue());
+        Files.write(Paths.get(results.toString().replaceAll("\\.jsonl$", "") + "-summary.json"),
+                JSON.toJson(summary).getBytes(StandardCharsets.UTF_8));
+        System.out.println("Throughput summary: " + summary);
+
+        Assert.assertEquals(failed.get(), 0, failed.get() + " of " + submitted + " scenarios failed, see " + results);
+    }
+
+    // runs on a worker thread, which keeps its DriverPool session from one scenario to the next
+    private static Map<String, Object> runOne(int seq, QuoteScenario scenario) {
+        Map<String, Object> outcome = new LinkedHashMap<>();
+        outcome.put("seq", seq);
+        outcome.put("scenario", scenario.slug());
+        outcome.put("thread", Thread.currentThread().getName());
+        outcome.put("startedAt", System.currentTimeMillis());
+        long t0 = System.nanoTime();
+        try {
+            WebDriver driver = DriverPool.get();
+            String text = QuoteFlow.run(driver, scenario);
+            boolean ok = text.contains("Thank you for the");
+            outcome.put("outcome", ok ? "pass" : "fail");
+            if (!ok) outcome.put("error", "Unexpected thank you text: " + text);
+        } catch (Exception e) {
+            outcome.put("outcome", "fail");
+            outcome.put("error", e.getClass().getSimpleName() + ": " + String.valueOf(e.getMessage()).split("\n")[0]);
+            // a session left mid-funnel is reset (or retired) before the next scenario
+            DriverPool.release();
+        }
+        outcome.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+        return outcome;
+    }
+}
@@ -0,0 +1,48 @@
+package org.test;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * WebDriverWait that books the time spent polling as wait time in {@link StepMetrics}.
+ * A named wait takes its timeout from {@link TimeoutPolicy}, with the given duration
+ * as the ceiling, and feeds its outcome back into the policy's history.
+ */
+public class TimedWait extends WebDriverWait {
+
+    private final String name;
+    private final Duration limit;
+
+    public TimedWait(WebDriver driver, Duration timeout) {
+        this(driver, timeout, null);
+    }
+
+    public TimedWait(WebDriver driver, String name, Duration ceiling) {
+        this(driver, TimeoutPolicy.timeout(name, ceiling), name);
+    }
+
+    // the policy is asked once, so the limit recorded on timeout is the one the wait ran with
+    private TimedWait(WebDriver driver, Duration limit, String name) {
+        super(driver, limit);
+        this.name = name;
+        this.limit = limit;
+    }
+
+    @Override
+    public <V> V until(Function<? super WebDriver, V> isTrue) {
+        if (name == null) return StepMetrics.waiting(() -> super.until(isTrue));
+        long start = System.nanoTime();
+        try {
+            V value = StepMetrics.waiting(() -> super.until(isTrue));
+            TimeoutPolicy.record(name, Duration.ofNanos(System.nanoTime() - start));
+            return value;
+        } catch (TimeoutException e) {
+            TimeoutPolicy.record(name, limit);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package org.test;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+
+/**
+ * Sizes named waits from how long they took in earlier runs. Each wait's successful
+ * durations are recorded per run and kept for the last -Dtimeouts.historyRuns runs
+ * (default 20) in -Dtimeouts.history (default wait-history/wait-history.json).
+ *
+ * Once a wait has -Dtimeouts.minSamples samples (default 30), its timeout is
+ * -Dtimeouts.multiplier (default 3) times the historical p99, never below
+ * -Dtimeouts.floorMs (default 2000) and never above the hardcoded ceiling the caller
+ * passes in. Until then, or with -Dtimeouts.adaptive=false, the ceiling is used as is.
+ * A wait that times out is recorded at its limit, so a timeout sized too tight grows
+ * back instead of failing forever.
+ */
+public final class TimeoutPolicy {
+
+    private static final long MAX_TRACKABLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final Json JSON = new Json();
+
+    private static final boolean ADAPTIVE = Boolean.parseBoolean(System.getProperty("timeouts.adaptive", "true"));
+    private static final double MULTIPLIER = Double.parseDouble(System.getProperty("timeouts.multiplier", "3"));
+    private static final long FLOOR_MILLIS = Long.getLong("timeouts.floorMs", 2000L);
+    private static final long MIN_SAMPLES = Long.getLong("timeouts.minSamples", 30L);
+    private static final int HISTORY_RUNS = Integer.getInteger("timeouts.historyRuns", 20);
+
+    // p99 per wait over the stored runs, fixed for the duration of this run
+    private static final Map<String, Histogram> HISTORY = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> THIS_RUN = new ConcurrentHashMap<>();
+    private static final Map<String, Long> USED = new ConcurrentHashMap<>();
+
+    static {
+        load();
+        Runtime.getRuntime().addShutdownHook(new Thread(TimeoutPolicy::save, "wait-history-save"));
+    }
+
+    private TimeoutPolicy() {}
+
+    static Path file() {
+        return Paths.get(System.getProperty("timeouts.history", "wait-history/wait-history.json"));
+    }
+
+    /** Timeout for the named wait: the ceiling, or less once its history says it is never needed. */
+    public static Duration timeout(String name, Duration ceiling) {
+        Duration limit = ceiling;
+        Histogram history = HISTORY.get(name);
+        if (ADAPTIVE && history != null && history.getTotalCount() >= MIN_SAMPLES) {
+            long sized = (long) (history.getValueAtPercentile(99) * MULTIPLIER);
+            limit = Duration.ofMillis(Math.min(ceiling.toMillis(), Math.max(FLOOR_MILLIS, sized)));
+        }
+        USED.put(name, limit.toMillis());
+        return limit;
+    }
+
+    /** Records how long the named wait took to succeed. */
+    public static void record(String name, Duration observed) {
+        THIS_RUN.computeIfAbsent(name, k -> new ConcurrentHistogram(MAX_TRACKABLE_MILLIS, 2))
+                .recordValue(Math.max(0, Math.min(MAX_TRACKABLE_MILLIS, observed.toMillis())));
+    }
+
+    /**
+     * Runs a wait that takes its timeout as an argument and reports failure by returning
+     * null or an empty collection (e.g. {@link SuggestionWatcher#awaitOptions}).
+     */
+    public static <T> T observe(String name, Duration ceiling, Function<Duration, T> wait) {
+        Duration limit = timeout(name, ceiling);
+        long start = System.nanoTime();
+        try {
+            T result = wait.apply(limit);
+            boolean found = result != null && !(result instanceof Collection && ((Collection<?>) result).isEmpty());
+            record(name, found ? Duration.ofNanos(System.nanoTime() - start) : limit);
+            return result;
+        } catch (TimeoutException e) {
+            record(name, limit);
+            throw e;
+        }
+    }
+
+    /** name, runs-so-far p99, this run's count and p99, timeout used (ms). */
+    public static List<String[]> summaryRows() {
+        return mergedRows(List.of(toMap()));
+    }
+
+    /** This run's waits: histogram, timeout used and the history p99 it was sized from, per name. */
+    public static Map<String, Object> toMap() {
+        Map<String, Object> out = new TreeMap<>();
+        for (Map.Entry<String, Histogram> e : THIS_RUN.entrySet()) {
+            Histogram history = HISTORY.get(e.getKey());
+            Map<String, Object> wait = new LinkedHashMap<>();
+            wait.put("histogram", StepMetrics.encode(e.getValue()));
+            wait.put("timeoutMs", USED.getOrDefault(e.getKey(), 0L));
+            wait.put("historyP99", history == null ? null : history.getValueAtPercentile(99));
+            out.put(e.getKey(), wait);
+        }
+        return out;
+    }
+
+    /**
+     * {@link #summaryRows} over several {@link #toMap} dumps, e.g. one per shard: samples
+     * are merged, timeout and history p99 are the largest any of them used.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<String[]> mergedRows(List<Map<String, Object>> runs) {
+        Map<String, Histogram> samples = new TreeMap<>();
+        Map<String, Long> timeouts = new TreeMap<>();
+        Map<String, Long> historyP99 = new TreeMap<>();
+        for (Map<String, Object> run : runs) {
+            run.forEach((name, value) -> {
+                Map<String, Object> wait = (Map<String, Object>) value;
+                samples.computeIfAbsent(name, k -> new Histogram(MAX_TRACKABLE_MILLIS, 2)).add(decode((String) wait.get("histogram")));
+                timeouts.merge(name, ((Number) wait.get("timeoutMs")).longValue(), Math::max);
+                if (wait.get("historyP99") != null) historyP99.merge(name, ((Number) wait.get("historyP99")).longValue(), Math::max);
+            });
+        }
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[] { "Wait", "History p99", "Samples", "p99", "Timeout" });
+        for (Map.Entry<String, Histogram> e : samples.entrySet()) {
+            Long history = historyP99.get(e.getKey());
+            rows.add(new String[] {
+                    e.getKey(),
+                    history == null ? "-" : String.valueOf(history),
+                    String.valueOf(e.getValue().getTotalCount()),
+                    String.valueOf(e.getValue().getValueAtPercentile(99)),
+                    String.valueOf(timeouts.get(e.getKey())) });
+        }
+        return rows;
+    }
+
+    private static void load() {
+        for (Map.Entry<String, List<String>> e : readRuns().entrySet()) {
+            Histogram merged = new Histogram(MAX_TRACKABLE_MILLIS, 2);
+            try {
+                for (String run : e.getValue()) merged.add(decode(run));
+                HISTORY.put(e.getKey(), merged);
+            } catch (RuntimeException ex) {
+                System.err.println("Ignoring wait history for " + e.getKey() + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    // re-read before writing so parallel JVMs sharing the file lose as little as possible
+    static synchronized void save() {
+        if (THIS_RUN.isEmpty()) return;
+        Map<String, List<String>> runs = readRuns();
+        for (Map.Entry<String, Histogram> e : THIS_RUN.entrySet()) {
+            List<String> kept = runs.computeIfAbsent(e.getKey(), k -> new ArrayList<>());
+            kept.add(StepMetrics.encode(e.getValue()));
+            while (kept.size() > HISTORY_RUNS) kept.remove(0);
+        }
+        try {
+            Path file = file().toAbsolutePath();
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), "wait-history", ".tmp");
+            Files.write(tmp, JSON.toJson(runs).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to save wait history: " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<String>> readRuns() {
+        Map<String, List<String>> runs = new LinkedHashMap<>();
+        if (!Files.exists(file())) return runs;
+        try {
+            Map<String, Object> stored = JSON.toType(new String(Files.readAllBytes(file()), StandardCharsets.UTF_8), Map.class);
+            stored.forEach((name, list) -> runs.put(name, new ArrayList<>((List<String>) list)));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable wait history " + file() + ": " + e.getMessage());
+        }
+        return runs;
+    }
+
+    private static Histogram decode(String encoded) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), MAX_TRACKABLE_MILLIS);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt wait history entry", e);
+        }
+    }
+}
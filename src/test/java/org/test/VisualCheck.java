@@ -0,0 +1,337 @@
+package org.test;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.openqa.selenium.json.Json;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Visual regression check of the top of the page at each funnel stage and on the
+ * thank-you page, against a baseline per scenario and stage under -Dvisual.baselines
+ * (default visual-baselines/, per quote target). A stage without a baseline gets one
+ * from the first attempt that reaches the thank-you page, so an error page from a
+ * failing attempt never becomes the reference; -Dvisual.update=true replaces them the
+ * same way.
+ *
+ * The test thread only takes the capture (one viewport-sized DevTools screenshot at
+ * -Dvisual.scale, default 0.5) and the boxes of the -Dvisual.ignore elements (CSS,
+ * comma separated), which are blanked in both images. Comparison runs in the
+ * background: a 256-bit difference hash first, and only when that differs by more than
+ * -Dvisual.hashThreshold bits a pixel diff over 64 px tiles on a fork-join pool.
+ * A stage whose changed pixels (any channel off by more than -Dvisual.pixelTolerance)
+ * exceed -Dvisual.maxChangedRatio is reported with a diff image. -Dvisual.check=false
+ * turns the check off.
+ */
+public final class VisualCheck {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("visual.check", "true"));
+    private static final boolean UPDATE = Boolean.getBoolean("visual.update");
+    private static final double SCALE = Double.parseDouble(System.getProperty("visual.scale", "0.5"));
+    private static final int HASH_THRESHOLD = Integer.getInteger("visual.hashThreshold", 0);
+    private static final int TOLERANCE = Integer.getInteger("visual.pixelTolerance", 24);
+    private static final double MAX_CHANGED_RATIO = Double.parseDouble(System.getProperty("visual.maxChangedRatio", "0.002"));
+    private static final List<String> IGNORE = csv(System.getProperty("visual.ignore",
+            "input[name='start_date'], #customDropdownButton, #thankYouMessage strong"));
+
+    private static final int TILE = 64;
+    private static final int HASH_W = 16;
+    private static final int HASH_H = 16;
+    private static final int MASK = 0x808080;
+    private static final Json JSON = new Json();
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+            Integer.getInteger("visual.threads", Runtime.getRuntime().availableProcessors()));
+    private static final ThreadLocal<List<CompletableFuture<Result>>> CHECKS = ThreadLocal.withInitial(ArrayList::new);
+    // captures for stages without a baseline, held until the attempt reaches the thank-you page
+    private static final ThreadLocal<List<Callable<Result>>> NEW_BASELINES = ThreadLocal.withInitial(ArrayList::new);
+
+    // ignore boxes in document coordinates, scaled like the capture
+    private static final String REGIONS_SCRIPT =
+        "const sels = arguments[0], k = arguments[1], rects = [];" +
+        "for (const sel of sels) {" +
+        "  let nodes = [];" +
+        "  try { nodes = document.querySelectorAll(sel); } catch (e) { continue; }" +
+        "  for (const n of nodes) {" +
+        "    const r = n.getBoundingClientRect();" +
+        "    if (r.width && r.height) rects.push([Math.floor((r.left + scrollX) * k), Math.floor((r.top + scrollY) * k)," +
+        "        Math.ceil(r.width * k) + 1, Math.ceil(r.height * k) + 1]);" +
+        "  }" +
+        "}" +
+        "return { rects: rects, width: innerWidth, height: innerHeight };";
+
+    /** Outcome for one stage; {@link #changed} ones carry a diff image. */
+    public static final class Result {
+        public final String stage;
+        public final boolean changed;
+        public final String detail;
+        public final String diffPath;
+
+        Result(String stage, boolean changed, String detail, String diffPath) {
+            this.stage = stage;
+            this.changed = changed;
+            this.detail = detail;
+            this.diffPath = diffPath;
+        }
+
+        @Override
+        public String toString() { return "Visual check '" + stage + "': " + detail; }
+    }
+
+    private VisualCheck() {}
+
+    static Path baselineDir(String key) {
+        return Paths.get(System.getProperty("visual.baselines", "visual-baselines"), QuoteTarget.isStandIn() ? "standin" : "rentx",
+                key.replaceAll("[^A-Za-z0-9_.-]", "_"));
+    }
+
+    /** Captures the page for the named stage and queues its comparison against the baseline. */
+    @SuppressWarnings("unchecked")
+    static void check(WebDriver driver, String key, String stage) {
+        if (!ENABLED || !(driver instanceof ChromiumDriver)) return;
+        ChromiumDriver chromium = (ChromiumDriver) driver;
+        final String base64;
+        final List<int[]> ignore;
+        try {
+            Map<String, Object> page = (Map<String, Object>) chromium.executeScript(REGIONS_SCRIPT, IGNORE, SCALE);
+            Map<String, Object> clip = new HashMap<>();
+            clip.put("x", 0);
+            clip.put("y", 0);
+            clip.put("width", page.get("width"));
+            clip.put("height", page.get("height"));
+            clip.put("scale", SCALE);
+            Map<String, Object> params = new HashMap<>();
+            params.put("format", "png");
+            params.put("captureBeyondViewport", true);
+            params.put("clip", clip);
+            base64 = (String) chromium.executeCdpCommand("Page.captureScreenshot", params).get("data");
+            ignore = rects((List<Object>) page.get("rects"));
+        } catch (RuntimeException e) {
+            System.err.println("Visual capture for " + stage + " failed: " + e.getMessage());
+            return;
+        }
+        String name = key + "_" + stage;
+        Path dir = baselineDir(key);
+        byte[] png = Base64.getMimeDecoder().decode(base64);
+        if (UPDATE || !Files.exists(dir.resolve(stage + ".png"))) {
+            NEW_BASELINES.get().add(() -> establish(dir, stage, png, ignore));
+            return;
+        }
+        CHECKS.get().add(ScreenshotService.submit(() -> compare(dir, name, stage, png, ignore)));
+    }
+
+    /** Starts an attempt: captures a previous attempt left waiting for a baseline are dropped. */
+    static void begin() {
+        NEW_BASELINES.get().clear();
+    }
+
+    /** The attempt reached the thank-you page: its captures become the missing baselines. */
+    static void confirm() {
+        for (Callable<Result> baseline : NEW_BASELINES.get()) CHECKS.get().add(ScreenshotService.submit(baseline));
+        NEW_BASELINES.get().clear();
+    }
+
+    /** The checks queued on this thread since the last call; they complete in the background. */
+    public static List<CompletableFuture<Result>> drain() {
+        List<CompletableFuture<Result>> queued = new ArrayList<>(CHECKS.get());
+        CHECKS.get().clear();
+        NEW_BASELINES.get().clear();
+        return queued;
+    }
+
+    static Result establish(Path dir, String stage, byte[] png, List<int[]> ignore) throws IOException {
+        saveBaseline(dir.resolve(stage + ".png"), png);
+        List<List<Integer>> boxes = new ArrayList<>();
+        for (int[] r : ignore) boxes.add(Arrays.asList(r[0], r[1], r[2], r[3]));
+        saveBaseline(dir.resolve(stage + ".ignore.json"), JSON.toJson(boxes).getBytes(StandardCharsets.UTF_8));
+        return new Result(stage, false, "new baseline", null);
+    }
+
+    static Result compare(Path dir, String name, String stage, byte[] png, List<int[]> ignore) throws IOException {
+        Path baselineFile = dir.resolve(stage + ".png");
+        Path regionsFile = dir.resolve(stage + ".ignore.json");
+        BufferedImage now = ImageIO.read(new ByteArrayInputStream(png));
+        BufferedImage then = ImageIO.read(baselineFile.toFile());
+        if (now == null || then == null) throw new IOException("Unreadable capture or baseline for " + stage);
+        if (now.getWidth() != then.getWidth() || now.getHeight() != then.getHeight()) {
+            String path = ArtifactStore.put(name + "_visual.png", png, "png");
+            return new Result(stage, true, "size changed from " + then.getWidth() + "x" + then.getHeight()
+                    + " to " + now.getWidth() + "x" + now.getHeight(), path);
+        }
+        int w = now.getWidth(), h = now.getHeight();
+        List<int[]> regions = new ArrayList<>(ignore);
+        regions.addAll(loadRegions(regionsFile));
+        int[] before = then.getRGB(0, 0, w, h, null, 0, w);
+        int[] after = now.getRGB(0, 0, w, h, null, 0, w);
+        mask(before, w, h, regions);
+        mask(after, w, h, regions);
+
+        int distance = hammingDistance(dHash(before, w, h), dHash(after, w, h));
+        if (distance <= HASH_THRESHOLD) return new Result(stage, false, "hash match", null);
+
+        int[] diff = new int[w * h];
+        int tiles = ((w + TILE - 1) / TILE) * ((h + TILE - 1) / TILE);
+        long changed = POOL.invoke(new TileDiff(before, after, diff, w, h, 0, tiles));
+        double ratio = (double) changed / (w * h);
+        String detail = String.format(Locale.ROOT, "%.2f%% of pixels changed, hash distance %d", ratio * 100, distance);
+        if (ratio <= MAX_CHANGED_RATIO) return new Result(stage, false, detail, null);
+
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, w, h, diff, 0, w);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bytes);
+        return new Result(stage, true, detail, ArtifactStore.put(name + "_visual_diff.png", bytes.toByteArray(), "png"));
+    }
+
+    // changed pixels in red over a faded copy of the baseline; each task owns whole tiles
+    private static final class TileDiff extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] before, after, diff;
+        private final int width, height, from, to;
+
+        TileDiff(int[] before, int[] after, int[] diff, int width, int height, int from, int to) {
+            this.before = before;
+            this.after = after;
+            this.diff = diff;
+            this.width = width;
+            this.height = height;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from > 4) {
+                int mid = (from + to) >>> 1;
+                TileDiff left = new TileDiff(before, after, diff, width, height, from, mid);
+                left.fork();
+                long right = new TileDiff(before, after, diff, width, height, mid, to).compute();
+                return left.join() + right;
+            }
+            int across = (width + TILE - 1) / TILE;
+            long changed = 0;
+            for (int t = from; t < to; t++) {
+                int x0 = (t % across) * TILE, y0 = (t / across) * TILE;
+                for (int y = y0; y < Math.min(height, y0 + TILE); y++) {
+                    for (int x = x0, i = y * width + x0; x < Math.min(width, x0 + TILE); x++, i++) {
+                        if (differs(before[i], after[i])) {
+                            diff[i] = 0xff0000;
+                            changed++;
+                        } else {
+                            diff[i] = fade(before[i]);
+                        }
+                    }
+                }
+            }
+            return changed;
+        }
+    }
+
+    private static boolean differs(int a, int b) {
+        return Math.abs(((a >> 16) & 0xff) - ((b >> 16) & 0xff)) > TOLERANCE
+                || Math.abs(((a >> 8) & 0xff) - ((b >> 8) & 0xff)) > TOLERANCE
+                || Math.abs((a & 0xff) - (b & 0xff)) > TOLERANCE;
+    }
+
+    private static int fade(int rgb) {
+        int r = 0xff - (0xff - ((rgb >> 16) & 0xff)) / 4;
+        int g = 0xff - (0xff - ((rgb >> 8) & 0xff)) / 4;
+        int b = 0xff - (0xff - (rgb & 0xff)) / 4;
+        return (r << 16) | (g << 8) | b;
+    }
+
+    // difference hash: mean luminance on a (HASH_W + 1) x HASH_H grid, one bit per horizontal neighbour pair
+    static long[] dHash(int[] pixels, int w, int h) {
+        int cols = HASH_W + 1;
+        long[] sum = new long[cols * HASH_H];
+        int[] count = new int[cols * HASH_H];
+        for (int y = 0; y < h; y++) {
+            int row = (int) ((long) y * HASH_H / h) * cols;
+            for (int x = 0; x < w; x++) {
+                int p = pixels[y * w + x];
+                int cell = row + (int) ((long) x * cols / w);
+                sum[cell] += ((p >> 16) & 0xff) * 299 + ((p >> 8) & 0xff) * 587 + (p & 0xff) * 114;
+                count[cell]++;
+            }
+        }
+        long[] bits = new long[HASH_W * HASH_H / 64];
+        for (int y = 0, bit = 0; y < HASH_H; y++) {
+            for (int x = 0; x < HASH_W; x++, bit++) {
+                int a = y * cols + x;
+                double left = count[a] == 0 ? 0 : (double) sum[a] / count[a];
+                double right = count[a + 1] == 0 ? 0 : (double) sum[a + 1] / count[a + 1];
+                if (left < right) bits[bit / 64] |= 1L << (bit % 64);
+            }
+        }
+        return bits;
+    }
+
+    private static int hammingDistance(long[] a, long[] b) {
+        int d = 0;
+        for (int i = 0; i < a.length; i++) d += Long.bitCount(a[i] ^ b[i]);
+        return d;
+    }
+
+    private static void mask(int[] pixels, int w, int h, List<int[]> regions) {
+        for (int[] r : regions) {
+            for (int y = Math.max(0, r[1]); y < Math.min(h, r[1] + r[3]); y++) {
+                int from = y * w + Math.max(0, r[0]);
+                int to = y * w + Math.min(w, r[0] + r[2]);
+                if (from < to) Arrays.fill(pixels, from, to, MASK);
+            }
+        }
+    }
+
+    private static List<int[]> rects(List<Object> raw) {
+        List<int[]> out = new ArrayList<>();
+        if (raw == null) return out;
+        for (Object o : raw) {
+            List<?> r = (List<?>) o;
+            out.add(new int[] { ((Number) r.get(0)).intValue(), ((Number) r.get(1)).intValue(),
+                    ((Number) r.get(2)).intValue(), ((Number) r.get(3)).intValue() });
+        }
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<int[]> loadRegions(Path file) {
+        if (!Files.exists(file)) return new ArrayList<>();
+        try {
+            return rects(JSON.toType(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), List.class));
+        } catch (IOException | RuntimeException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    private static void saveBaseline(Path file, byte[] content) throws IOException {
+        Path target = file.toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        Files.write(tmp, content);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static List<String> csv(String value) {
+        return value.isBlank() ? new ArrayList<>() : Arrays.asList(value.trim().split("\\s*,\\s*"));
+    }
+}
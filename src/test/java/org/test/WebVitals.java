@@ -0,0 +1,218 @@
+package org.test;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Page performance as the browser measures it, one sample per funnel stage. A collector
+ * registered with Page.addScriptToEvaluateOnNewDocument runs before the site's own
+ * scripts in every document and keeps PerformanceObserver totals: CLS (largest session
+ * window so far), layout shift, the slowest interaction (INP-style, from Event Timing)
+ * and long tasks, plus Resource Timing for what was fetched. {@link #sample} takes what
+ * accumulated since the previous sample. The first sample in a document also carries
+ * its Navigation Timing (TTFB, DOMContentLoaded, load), FCP and LCP; the funnel has
+ * clicked by then, and LCP stops updating after the first input.
+ *
+ * Samples are reported on the test in Extent and appended to the run history
+ * ({@link RunHistoryStore}), with the {@link BlockingProfile} they ran under. The ci
+ * profile blocks images, fonts, media and third-party scripts, so its LCP, CLS,
+ * transfer size and long tasks describe that stripped page rather than what visitors
+ * get; the report says so, and trends are kept per profile. Only a run with
+ * -Dblock.profile=off monitors the production page as served, which is why the daily
+ * workflow runs the default scenario unblocked before the ci-profile shards.
+ * -Dvitals.enabled=false turns collection off.
+ */
+public final class WebVitals {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("vitals.enabled", "true"));
+    private static final ThreadLocal<List<Sample>> SAMPLES = ThreadLocal.withInitial(ArrayList::new);
+
+    /** Metrics the run history keeps percentiles of, per stage. */
+    static final List<String> TRENDED = Arrays.asList("ttfb", "fcp", "lcp", "cls", "inp", "longTaskMs", "apiMaxMs");
+
+    // "poor" thresholds from the Core Web Vitals definitions
+    private static final double POOR_LCP = 4000;
+    private static final double POOR_CLS = 0.25;
+    private static final double POOR_INP = 500;
+
+    private static final String COLLECTOR =
+        "(() => {" +
+        "  if (window !== window.top || window.__vitals) return;" +
+        "  const doc = { fcp: null, lcp: null, cls: 0 }, step = { shift: 0, inp: 0, interactions: 0, longTasks: 0, longTaskMs: 0 };" +
+        "  let win = 0, winStart = 0, winLast = 0, seen = 0, navReported = false;" +
+        "  const observe = (type, cb, opts) => {" +
+        "    try { new PerformanceObserver(l => l.getEntries().forEach(cb)).observe(Object.assign({ type: type, buffered: true }, opts)); } catch (e) {}" +
+        "  };" +
+        "  try { performance.setResourceTimingBufferSize(2000); } catch (e) {}" +
+        "  observe('paint', e => { if (e.name === 'first-contentful-paint') doc.fcp = e.startTime; });" +
+        "  observe('largest-contentful-paint', e => { doc.lcp = e.renderTime || e.loadTime || e.startTime; });" +
+        "  observe('layout-shift', e => {" +
+        "    if (e.hadRecentInput) return;" +
+        "    if (e.startTime - winLast > 1000 || e.startTime - winStart > 5000) { win = 0; winStart = e.startTime; }" +
+        "    win += e.value; winLast = e.startTime; doc.cls = Math.max(doc.cls, win); step.shift += e.value;" +
+        "  });" +
+        "  observe('longtask', e => { step.longTasks++; step.longTaskMs += e.duration; });" +
+        "  observe('event', e => { if (e.interactionId) { step.interactions++; step.inp = Math.max(step.inp, e.duration); } }, { durationThreshold: 16 });" +
+        "  window.__vitals = { take: () => {" +
+        "    const out = Object.assign({ url: location.href, cls: doc.cls }, step);" +
+        "    const nav = performance.getEntriesByType('navigation')[0];" +
+        "    if (nav && !navReported) {" +
+        "      navReported = true;" +
+        "      out.ttfb = nav.responseStart - nav.startTime;" +
+        "      out.domContentLoaded = nav.domContentLoadedEventEnd - nav.startTime;" +
+        "      out.load = nav.loadEventEnd > 0 ? nav.loadEventEnd - nav.startTime : null;" +
+        "      out.fcp = doc.fcp; out.lcp = doc.lcp;" +
+        "    }" +
+        "    const res = performance.getEntriesByType('resource');" +
+        "    let bytes = 0, api = 0, apiMax = 0, slowest = null;" +
+        "    for (let i = seen; i < res.length; i++) {" +
+        "      const r = res[i];" +
+        "      bytes += r.transferSize || 0;" +
+        "      if (r.initiatorType === 'xmlhttprequest' || r.initiatorType === 'fetch') {" +
+        "        api++;" +
+        "        if (r.duration > apiMax) { apiMax = r.duration; slowest = r.name; }" +
+        "      }" +
+        "    }" +
+        "    out.requests = res.length - seen; out.transferKb = bytes / 1024; out.apiRequests = api; out.apiMaxMs = apiMax; out.slowestApi = slowest;" +
+        "    seen = res.length;" +
+        "    step.shift = 0; step.inp = 0; step.interactions = 0; step.longTasks = 0; step.longTaskMs = 0;" +
+        "    return out;" +
+        "  } };" +
+        "})();";
+
+    /** What one funnel stage cost the browser; numbers are ms except CLS, shift and transferKb. */
+    public static final class Sample {
+        public final String stage;
+        public final Map<String, Object> metrics;
+
+        Sample(String stage, Map<String, Object> metrics) {
+            this.stage = stage;
+            this.metrics = metrics;
+        }
+
+        Double get(String metric) {
+            Object v = metrics.get(metric);
+            return v instanceof Number ? ((Number) v).doubleValue() : null;
+        }
+    }
+
+    private WebVitals() {}
+
+    /** Registers the collector for every document the session loads from now on. */
+    static void attach(WebDriver driver) {
+        if (!ENABLED || !(driver instanceof ChromiumDriver)) return;
+        try {
+            Map<String, Object> params = new HashMap<>();
+            params.put("source", COLLECTOR);
+            ((ChromiumDriver) driver).executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", params);
+        } catch (RuntimeException e) {
+            System.err.println("Web vitals collector not installed: " + e.getMessage());
+        }
+    }
+
+    /** Takes the metrics gathered since the last sample in this document and keeps them for the current test. */
+    @SuppressWarnings("unchecked")
+    public static void sample(WebDriver driver, String stage) {
+        if (!ENABLED) return;
+        try {
+            Object taken = ((JavascriptExecutor) driver).executeScript("return window.__vitals ? window.__vitals.take() : null;");
+            if (taken instanceof Map) {
+                Map<String, Object> metrics = new LinkedHashMap<>((Map<String, Object>) taken);
+                metrics.put("blocking", blocking());
+                SAMPLES.get().add(new Sample(stage, metrics));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Web vitals sample for " + stage + " failed: " + e.getMessage());
+        }
+    }
+
+    /** The current thread's samples since the last drain. */
+    public static List<Sample> drain() {
+        List<Sample> samples = new ArrayList<>(SAMPLES.get());
+        SAMPLES.get().clear();
+        return samples;
+    }
+
+    /** The blocking profile samples are taken under: "off" when nothing is blocked, "custom" for -Dblock.patterns alone. */
+    static String blocking() {
+        if (!BlockingProfile.active()) return "off";
+        return "off".equals(BlockingProfile.name()) ? "custom" : BlockingProfile.name();
+    }
+
+    /** Report note on what the samples were measured against; null when nothing was blocked. */
+    public static String blockingNote() {
+        if ("off".equals(blocking())) return null;
+        return "Measured with blocking profile " + BlockingProfile.summary()
+                + ": blocked requests are missing from LCP, CLS, transfer size and long tasks, so these are not production figures";
+    }
+
+    /** Stage, navigation timing, paint, layout, interaction and network columns for the report. */
+    public static List<String[]> rows(List<Sample> samples) {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[] { "Stage", "TTFB", "DCL", "Load", "FCP", "LCP", "CLS", "Shift", "INP", "Long tasks",
+                "Requests", "KB", "API max", "Slowest API" });
+        for (Sample s : samples) {
+            rows.add(new String[] {
+                    s.stage,
+                    ms(s.get("ttfb")), ms(s.get("domContentLoaded")), ms(s.get("load")),
+                    ms(s.get("fcp")), ms(s.get("lcp")),
+                    score(s.get("cls")), score(s.get("shift")),
+                    s.get("interactions") == null || s.get("interactions") == 0 ? "-" : ms(s.get("inp")),
+                    s.get("longTasks") == null ? "-" : s.get("longTasks").intValue() + " / " + ms(s.get("longTaskMs")),
+                    ms(s.get("requests")), ms(s.get("transferKb")),
+                    s.get("apiRequests") == null || s.get("apiRequests") == 0 ? "-" : ms(s.get("apiMaxMs")),
+                    s.metrics.get("slowestApi") == null ? "-" : String.valueOf(s.metrics.get("slowestApi")) });
+        }
+        return rows;
+    }
+
+    /** Metrics in the "poor" range, for a warning on the test; empty when there are none. */
+    public static List<String> poor(List<Sample> samples) {
+        List<String> out = new ArrayList<>();
+        for (Sample s : samples) {
+            if (s.get("lcp") != null && s.get("lcp") > POOR_LCP) out.add(s.stage + " LCP " + ms(s.get("lcp")) + " ms");
+            if (s.get("cls") != null && s.get("cls") > POOR_CLS) out.add(s.stage + " CLS " + score(s.get("cls")));
+            if (s.get("inp") != null && s.get("inp") > POOR_INP) out.add(s.stage + " INP " + ms(s.get("inp")) + " ms");
+        }
+        return out;
+    }
+
+    /**
+     * The {@link #TRENDED} values a sample (or a stored record of one) actually measured,
+     * as whole ms and CLS in thousandths. INP and API max only count when the stage had
+     * an interaction or an XHR/fetch.
+     */
+    static Map<String, Long> trended(Map<String, Object> metrics) {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (String metric : TRENDED) {
+            Object v = metrics.get(metric);
+            if (!(v instanceof Number)) continue;
+            if ("inp".equals(metric) && !positive(metrics.get("interactions"))) continue;
+            if ("apiMaxMs".equals(metric) && !positive(metrics.get("apiRequests"))) continue;
+            double d = ((Number) v).doubleValue();
+            out.put(metric, Math.max(0, Math.round("cls".equals(metric) ? d * 1000 : d)));
+        }
+        return out;
+    }
+
+    private static boolean positive(Object v) {
+        return v instanceof Number && ((Number) v).doubleValue() > 0;
+    }
+
+    private static String ms(Double v) {
+        return v == null ? "-" : String.valueOf(Math.round(v));
+    }
+
+    private static String score(Double v) {
+        return v == null ? "-" : String.format(Locale.ROOT, "%.3f", v);
+    }
+}